@@ -0,0 +1,35 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * Shared setup of the JMH benchmarks in this source root.
+ * <p>
+ * The managers read and write {@code medialab/} relative to the working directory, so every trial
+ * first generates a dataset there with {@link DatasetGenerator}. Run the benchmarks from a scratch
+ * directory; a {@code medialab/} that was not generated is never overwritten. From the compiled
+ * bench module (JMH and its annotation processor on the class path):
+ * <pre>
+ *   java -cp &lt;classpath&gt; org.openjdk.jmh.Main -rf json -rff bench.json
+ *   java -cp &lt;classpath&gt; org.openjdk.jmh.Main SearchBenchmark -p tasks=100000
+ * </pre>
+ * The reference day is the day of the run, so the overdue and due-soon figures are the same every day.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    // The application's own Gson, see Codecs
+    static Gson gson() {
+        return Codecs.gson();
+    }
+
+    static void generate(int tasks) throws IOException {
+        DatasetGenerator.generate(Paths.get(""), tasks, DatasetGenerator.DEFAULT_SEED, LocalDate.now());
+    }
+}
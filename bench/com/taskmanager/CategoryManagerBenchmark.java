@@ -0,0 +1,63 @@
+package com.taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renaming the most used category, which holds the largest share of the tasks. The edits run in a
+ * {@link TaskManager#beginBatch() batch} that is never ended, so only the in-memory work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CategoryManagerBenchmark {
+    private static final String CATEGORY = "Work";
+    private static final String RENAMED = "Work (renamed)";
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tasks;
+
+    private TaskManager taskManager;
+    private CategoryManager categoryManager;
+    private boolean renamed;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.generate(tasks);
+        taskManager = new TaskManager(BenchmarkData.gson());
+        categoryManager = new CategoryManager();
+        taskManager.beginBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        PersistenceService.getInstance().flush();
+    }
+
+    // Alternates between the two names, so every invocation moves the same tasks
+    @Benchmark
+    public void renameCategory() {
+        if (renamed) {
+            categoryManager.renameCategory(RENAMED, CATEGORY, taskManager);
+        } else {
+            categoryManager.renameCategory(CATEGORY, RENAMED, taskManager);
+        }
+        renamed = !renamed;
+    }
+}
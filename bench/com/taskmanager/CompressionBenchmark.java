@@ -0,0 +1,71 @@
+package com.taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and saving the task store with and without gzip, see {@link Compression}. The sizes on
+ * disk, the compression ratio and the throughput of every read and write are printed at the end
+ * of each trial from the {@code storage.*} gauges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CompressionBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tasks;
+
+    @Param({Compression.NONE, Compression.GZIP})
+    public String compression;
+
+    private TaskManager taskManager;
+
+    @Setup
+    public void setUp() throws IOException {
+        System.setProperty("taskly.compression", compression);
+        BenchmarkData.generate(tasks);
+        taskManager = new TaskManager(BenchmarkData.gson(), false);
+        // The generator writes plain JSON; rewrite it in the mode under test
+        taskManager.saveTasks();
+        PersistenceService.getInstance().flush();
+    }
+
+    @TearDown
+    public void report() {
+        String prefix = "storage.tasks." + compression + ".";
+        Metrics.getInstance().getGauges().forEach((name, value) -> {
+            if (name.startsWith(prefix)) {
+                System.out.println(name + " = " + value);
+            }
+        });
+    }
+
+    // Reads and decodes tasks.json and builds every index, as at startup
+    @Benchmark
+    public TaskManager loadTasks() {
+        return new TaskManager(BenchmarkData.gson(), false);
+    }
+
+    // Writes a full snapshot in the mode under test and waits for it
+    @Benchmark
+    public void saveTasks() {
+        taskManager.saveTasks();
+        PersistenceService.getInstance().flush();
+    }
+}
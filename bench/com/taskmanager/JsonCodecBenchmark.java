@@ -0,0 +1,113 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing tasks.json and reminders.json with the shared {@link Codecs} adapters,
+ * against the reflective binding they replaced: plain classes with the same JSON shape, Gson's
+ * reflective and enum adapters, and dates through a {@code DateTimeFormatter}. The files are held
+ * in memory and output is discarded, so only the binding is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JsonCodecBenchmark {
+    private static final Type TASKS = new TypeToken<List<Task>>() {}.getType();
+    private static final Type PLAIN_TASKS = new TypeToken<List<PlainTask>>() {}.getType();
+    private static final Type REMINDERS = new TypeToken<List<ReminderManager.StoredReminder>>() {}.getType();
+    private static final Type PLAIN_REMINDERS = new TypeToken<List<PlainReminder>>() {}.getType();
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tasks;
+
+    // The reflective layout of a task before symbol ids, as the old Gson instances bound it
+    static class PlainTask {
+        long id;
+        String title;
+        String description;
+        String category;
+        String priority;
+        LocalDate deadline;
+        Task.Status status;
+    }
+
+    static class PlainReminder {
+        Long taskId;
+        LocalDate reminderDate;
+        boolean isShown;
+    }
+
+    private final Gson adapters = Codecs.gson();
+    private final Gson reflective = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter("yyyy-MM-dd"))
+            .create();
+    private String tasksJson;
+    private String remindersJson;
+    private List<Task> taskList;
+    private List<PlainTask> plainTaskList;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.generate(tasks);
+        tasksJson = new String(Files.readAllBytes(Paths.get("medialab/tasks.json")), StandardCharsets.UTF_8);
+        remindersJson = new String(Files.readAllBytes(Paths.get("medialab/reminders.json")), StandardCharsets.UTF_8);
+        taskList = adapters.fromJson(tasksJson, TASKS);
+        plainTaskList = reflective.fromJson(tasksJson, PLAIN_TASKS);
+    }
+
+    @Benchmark
+    public List<Task> readTasks() {
+        return adapters.fromJson(tasksJson, TASKS);
+    }
+
+    @Benchmark
+    public List<PlainTask> readTasksReflective() {
+        return reflective.fromJson(tasksJson, PLAIN_TASKS);
+    }
+
+    @Benchmark
+    public void writeTasks() {
+        adapters.toJson(taskList, TASKS, Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void writeTasksReflective() {
+        reflective.toJson(plainTaskList, PLAIN_TASKS, Writer.nullWriter());
+    }
+
+    @Benchmark
+    public List<ReminderManager.StoredReminder> readReminders() {
+        return adapters.fromJson(remindersJson, REMINDERS);
+    }
+
+    @Benchmark
+    public List<PlainReminder> readRemindersReflective() {
+        return reflective.fromJson(remindersJson, PLAIN_REMINDERS);
+    }
+}
@@ -0,0 +1,70 @@
+package com.taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removing one item from the UI lists and adding it back, as the FX thread does for each remove and
+ * add event. The event handlers' FX-thread parts are called directly, so no toolkit is needed.
+ * Should stay flat as the lists grow, apart from the array copy of the removal itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ListModelBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tasks;
+
+    private TaskListModel taskListModel;
+    private ReminderListModel reminderListModel;
+    private List<TaskRecord> allTasks;
+    private List<Reminder> reminders;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.generate(tasks);
+        TaskManager taskManager = new TaskManager(BenchmarkData.gson());
+        ReminderManager reminderManager = new ReminderManager(BenchmarkData.gson(), taskManager);
+        reminderManager.whenLoaded().join();
+        allTasks = new ArrayList<>();
+        taskManager.snapshot().forEach(allTasks::add);
+        reminders = reminderManager.getReminders();
+        taskListModel = new TaskListModel(taskManager);
+        taskListModel.reload();
+        reminderListModel = new ReminderListModel(reminderManager, taskManager);
+        reminderListModel.reload();
+    }
+
+    // Spread over the whole list, so most removals are far from either end
+    @Benchmark
+    public void removeAndAddTask() {
+        TaskRecord task = allTasks.get((int) ((next++ * 7919L) % allTasks.size()));
+        taskListModel.hide(task.getId());
+        taskListModel.show(task);
+    }
+
+    @Benchmark
+    public void removeAndAddReminder() {
+        Reminder reminder = reminders.get((int) ((next++ * 7919L) % reminders.size()));
+        reminderListModel.forget(reminder);
+        reminderListModel.show(reminder);
+    }
+}
@@ -0,0 +1,96 @@
+package com.taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging a tasks.json that another program replaced, as {@link DataWatcher} has it done: the file
+ * is read again and only the tasks that differ are applied. Invocations alternate between two
+ * versions of the file, one with a task edited and a task added back with a low id, so each merge
+ * applies those two changes. The setup checks that the task with the low id, which the snapshot
+ * builder never saw, is merged in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OutsideChangeBenchmark {
+    private static final Path TASKS_PATH = Paths.get("medialab", "tasks.json");
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tasks;
+
+    private TaskManager taskManager;
+    private byte[] before;
+    private byte[] after; // one task edited, and the removed task back
+    private long lowId;
+    private boolean edited;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.generate(tasks);
+        TaskManager first = new TaskManager(BenchmarkData.gson());
+        Task removed = first.getTasks().get(1);
+        lowId = removed.getId();
+        first.removeTask(lowId);
+        first.saveTasks();
+        PersistenceService.getInstance().flush();
+        taskManager = new TaskManager(BenchmarkData.gson()); // Its snapshot never held the removed task
+
+        List<Task> stored = new ArrayList<>();
+        for (Task task : taskManager.getTasks()) {
+            stored.add(new Task(task));
+        }
+        before = BenchmarkData.gson().toJson(stored).getBytes(StandardCharsets.UTF_8);
+        stored.get(stored.size() / 2).setTitle("Edited by another program");
+        stored.add(removed);
+        after = BenchmarkData.gson().toJson(stored).getBytes(StandardCharsets.UTF_8);
+
+        mergeChange();
+        if (taskManager.getTaskById(lowId) == null || !taskManager.snapshot().contains(lowId)) {
+            throw new IllegalStateException("Task " + lowId + " from the outside change was not merged");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        PersistenceService.getInstance().flush();
+    }
+
+    @Benchmark
+    public void mergeChange() throws IOException {
+        edited = !edited;
+        replaceOutside(edited ? after : before);
+        taskManager.checkForOutsideChanges();
+        PersistenceService.getInstance().flush();
+    }
+
+    // The way a sync tool replaces a file: write a sibling and rename it over the original
+    private static void replaceOutside(byte[] content) throws IOException {
+        Path temp = TASKS_PATH.resolveSibling("tasks.json.sync");
+        Files.write(temp, content);
+        Files.move(temp, TASKS_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
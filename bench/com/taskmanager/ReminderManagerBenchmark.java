@@ -0,0 +1,73 @@
+package com.taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding, deleting and looking up reminders. Every edit also schedules the coalesced rewrite of
+ * reminders.json, which runs on the writer thread while the benchmark continues, as in the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReminderManagerBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tasks;
+
+    private ReminderManager reminderManager;
+    private List<Task> allTasks;
+    private List<Task> withoutReminders; // open tasks with a deadline and no reminder yet
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.generate(tasks);
+        TaskManager taskManager = new TaskManager(BenchmarkData.gson());
+        reminderManager = new ReminderManager(BenchmarkData.gson(), taskManager);
+        reminderManager.whenLoaded().join();
+        allTasks = new ArrayList<>(taskManager.getTasks());
+        withoutReminders = new ArrayList<>();
+        for (Task task : allTasks) {
+            if (task.getDeadline() != null && task.getStatus() != Task.Status.COMPLETED
+                    && reminderManager.getRemindersForTask(task).isEmpty()) {
+                withoutReminders.add(task);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        PersistenceService.getInstance().flush();
+    }
+
+    // Paired so every invocation leaves the reminders as it found them
+    @Benchmark
+    public void addAndDeleteReminder() {
+        Task task = withoutReminders.get(next++ % withoutReminders.size());
+        reminderManager.addReminder(task, task.getDeadline().minusDays(2));
+        reminderManager.deleteRemindersForTask(task);
+    }
+
+    @Benchmark
+    public List<Reminder> getRemindersForTask() {
+        return reminderManager.getRemindersForTask(allTasks.get(next++ % allTasks.size()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TaskManager#searchRanked}, with the kinds of query the search panel sends. The word lists
+ * of {@link DatasetGenerator} decide how selective each query is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tasks;
+
+    private TaskManager taskManager;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.generate(tasks);
+        taskManager = new TaskManager(BenchmarkData.gson());
+    }
+
+    // One whole word, found in about one title in twenty-eight
+    @Benchmark
+    public List<Task> singleWord() {
+        return taskManager.searchRanked("invoice", null, null);
+    }
+
+    // A word still being typed: matches "schedule" and "school"
+    @Benchmark
+    public List<Task> prefix() {
+        return taskManager.searchRanked("sch", null, null);
+    }
+
+    @Benchmark
+    public List<Task> twoWordsFiltered() {
+        return taskManager.searchRanked("pay rent", "High", null);
+    }
+
+    // No words: only the priority and category filters
+    @Benchmark
+    public List<Task> filtersOnly() {
+        return taskManager.searchRanked("", "High", "Work");
+    }
+}
@@ -0,0 +1,77 @@
+package com.taskmanager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and saving the task store, and the overdue sweep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TaskManagerBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tasks;
+
+    private TaskManager taskManager;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.generate(tasks);
+        taskManager = new TaskManager(BenchmarkData.gson());
+    }
+
+    // Reads tasks.json and builds every index, as at startup
+    @Benchmark
+    public TaskManager loadTasks() {
+        return new TaskManager(BenchmarkData.gson());
+    }
+
+    // Requests a snapshot and waits until the writer thread has written it
+    @Benchmark
+    public void saveTasks() {
+        taskManager.saveTasks();
+        PersistenceService.getInstance().flush();
+    }
+
+    // The generated data is already swept for its reference day, so this is the steady-state cost
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Task> updateOverdueTasks() {
+        return taskManager.updateOverdueTasks();
+    }
+
+    // What the summary labels cost without the incremental counters
+    @Benchmark
+    public TaskStatistics.Counts recountStatistics() {
+        TaskStatistics statistics = new TaskStatistics();
+        statistics.rebuild(taskManager.snapshot(), LocalDate.now());
+        return statistics.getTotals();
+    }
+
+    // What the summary labels cost on every change
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TaskStatistics.Counts readStatistics() {
+        TaskStatistics statistics = taskManager.getStatistics();
+        statistics.getByCategory();
+        return statistics.getTotals();
+    }
+}
@@ -0,0 +1,361 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of the task list, read through a memory-mapped {@link FileChannel}.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ *   int    magic "TSKB", int version, int task count
+ *   int    category count, then per category: int byte length + UTF-8 bytes
+ *   int    priority count, then per priority: int byte length + UTF-8 bytes
+ *   count x fixed {@value #RECORD_SIZE}-byte records:
+ *          long task id, int title offset, int title length (-1 = null), int description offset, int description length (-1 = null),
+ *          int category id (-1 = null), int priority id (-1 = null), int deadline epoch day ({@link Integer#MIN_VALUE} = none),
+ *          byte status ordinal (-1 = null)
+ *   string heap: the UTF-8 bytes the record offsets point into
+ * </pre>
+ * Categories and priorities are dictionary coded, so each distinct name is stored once. A missing
+ * title or status, which {@link TaskAdapter} reads from an empty title or an unknown status, is
+ * stored as missing, the way {@link TaskColumns} keeps it.
+ * Offsets are ints, which limits a snapshot to 2 GB; {@link #toJson} and {@link #fromJson}
+ * convert to and from the regular Gson format.
+ * <p>
+ * The mapping is released by {@link #close()} rather than whenever the buffer is collected: while a
+ * file is mapped, Windows refuses to replace it, which is how the next write of the same snapshot
+ * goes. Not thread-safe.
+ */
+public class BinaryTaskSnapshot implements Closeable {
+    public static final int MAGIC = 0x54534B42; // "TSKB"
+    public static final int VERSION = 2;
+    static final int RECORD_SIZE = Long.BYTES + 7 * Integer.BYTES + 1;
+    private static final int NO_DEADLINE = Integer.MIN_VALUE;
+    private static final byte NO_STATUS = -1;
+    private static final Task.Status[] STATUSES = Task.Status.values();
+
+    private MappedByteBuffer buffer; // null once closed
+    private final int count;
+    private final List<String> categories;
+    private final List<String> priorities;
+    private final int recordsStart;
+    private final int heapStart;
+
+    private BinaryTaskSnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.remaining() < 3 * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary task snapshot");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported binary task snapshot version " + buffer.getInt(Integer.BYTES));
+        }
+        ByteBuffer header = buffer.duplicate();
+        header.position(2 * Integer.BYTES);
+        this.count = header.getInt();
+        this.categories = readDictionary(header);
+        this.priorities = readDictionary(header);
+        this.recordsStart = header.position();
+        this.heapStart = recordsStart + count * RECORD_SIZE;
+    }
+
+    /**
+     * Maps a snapshot file into memory. Nothing is decoded until a record is accessed. The caller
+     * closes the snapshot once it has read what it needs.
+     *
+     * @param path The snapshot file.
+     * @return The opened snapshot.
+     * @throws IOException if the file cannot be mapped or is not a binary snapshot.
+     */
+    public static BinaryTaskSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new BinaryTaskSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Unmaps the file right away, so it can be replaced or deleted on every platform. Tasks already
+     * decoded stay valid; nothing may be read from the snapshot afterwards.
+     */
+    @Override
+    public void close() {
+        if (buffer != null) {
+            unmap(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Decodes one task.
+     *
+     * @param index Position of the task, from 0 to {@link #size()} - 1.
+     * @return A new Task with the stored fields and status, as stored: no defaults are applied.
+     */
+    public Task get(int index) {
+        int base = recordsStart + index * RECORD_SIZE + Long.BYTES;
+        String title = readString(buffer.getInt(base), buffer.getInt(base + 4));
+        int categoryId = buffer.getInt(base + 16);
+        int priorityId = buffer.getInt(base + 20);
+        int epochDay = buffer.getInt(base + 24);
+        Task task = new Task(); // Like TaskAdapter, so a task without a title reads back as it was written
+        task.setId(buffer.getLong(base - Long.BYTES));
+        if (title != null && !title.isEmpty()) {
+            task.setTitle(title);
+        }
+        task.setDescription(readString(buffer.getInt(base + 8), buffer.getInt(base + 12)));
+        task.setCategory(categoryId < 0 ? null : categories.get(categoryId));
+        task.setPriority(priorityId < 0 ? null : priorities.get(priorityId));
+        task.setDeadline(epochDay == NO_DEADLINE ? null : LocalDate.ofEpochDay(epochDay));
+        task.setStatus(status(buffer.get(base + 28)));
+        return task;
+    }
+
+    /**
+     * Reads the deadline of a task without decoding its strings.
+     *
+     * @param index Position of the task.
+     * @return The deadline as an epoch day, or {@link Integer#MIN_VALUE} if the task has none.
+     */
+    public int getEpochDay(int index) {
+        return buffer.getInt(recordsStart + index * RECORD_SIZE + Long.BYTES + 24);
+    }
+
+    /**
+     * Reads the status of a task without decoding its strings.
+     *
+     * @param index Position of the task.
+     * @return The task status, or {@code null} if the task has none.
+     */
+    public Task.Status getStatus(int index) {
+        return status(buffer.get(recordsStart + index * RECORD_SIZE + Long.BYTES + 28));
+    }
+
+    private static Task.Status status(byte ordinal) {
+        return ordinal == NO_STATUS ? null : STATUSES[ordinal];
+    }
+
+    /**
+     * Computes the CRC32 of the mapped file, as needed by the task journal header.
+     *
+     * @return The checksum of the whole snapshot.
+     */
+    public long checksum() {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0));
+        return crc.getValue();
+    }
+
+    /**
+     * Decodes every task and hands them over in batches, like {@link TaskStreamLoader#load}.
+     *
+     * @param path      The snapshot file.
+     * @param batchSize Number of tasks per batch.
+     * @param onBatch   Receives each batch on the calling thread.
+     * @return Count, length and checksum of the snapshot.
+     * @throws IOException if the file cannot be mapped or is not a binary snapshot.
+     */
+    public static TaskStreamLoader.Result load(Path path, int batchSize, Consumer<List<Task>> onBatch) throws IOException {
+        try (BinaryTaskSnapshot snapshot = open(path)) {
+            List<Task> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < snapshot.count; i++) {
+                batch.add(snapshot.get(i));
+                if (batch.size() == batchSize) {
+                    onBatch.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                onBatch.accept(batch);
+            }
+            return new TaskStreamLoader.Result(snapshot.count, snapshot.buffer.capacity(), snapshot.checksum(), null);
+        }
+    }
+
+    /**
+     * Writes tasks in the binary format.
+     *
+     * @param tasks The tasks to store.
+     * @param out   Destination stream; not closed by this method.
+     * @throws IOException if writing fails.
+     */
+    public static void write(List<Task> tasks, OutputStream out) throws IOException {
+        Map<String, Integer> categoryIds = new LinkedHashMap<>();
+        Map<String, Integer> priorityIds = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            if (task.getCategory() != null) {
+                categoryIds.putIfAbsent(task.getCategory(), categoryIds.size());
+            }
+            if (task.getPriority() != null) {
+                priorityIds.putIfAbsent(task.getPriority(), priorityIds.size());
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(tasks.size());
+        writeDictionary(data, categoryIds);
+        writeDictionary(data, priorityIds);
+
+        // Fixed-width records first; string offsets are relative to the start of the heap, which
+        // follows them with the strings encoded here
+        byte[][] heap = new byte[2 * tasks.size()][];
+        long heapOffset = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            byte[] title = heap[2 * i] = utf8(task.getTitle());
+            byte[] description = heap[2 * i + 1] = utf8(task.getDescription());
+            int titleLength = title == null ? -1 : title.length;
+            int descriptionLength = description == null ? -1 : description.length;
+            data.writeLong(task.getId());
+            data.writeInt((int) heapOffset);
+            data.writeInt(titleLength);
+            heapOffset += Math.max(titleLength, 0);
+            data.writeInt((int) heapOffset);
+            data.writeInt(descriptionLength);
+            heapOffset += Math.max(descriptionLength, 0);
+            if (heapOffset > Integer.MAX_VALUE) {
+                throw new IOException("Task strings exceed the 2 GB binary snapshot limit");
+            }
+            data.writeInt(task.getCategory() == null ? -1 : categoryIds.get(task.getCategory()));
+            data.writeInt(task.getPriority() == null ? -1 : priorityIds.get(task.getPriority()));
+            data.writeInt(task.getDeadline() == null ? NO_DEADLINE : (int) task.getDeadline().toEpochDay());
+            data.writeByte(task.getStatus() == null ? NO_STATUS : task.getStatus().ordinal());
+        }
+        for (byte[] bytes : heap) {
+            if (bytes != null) {
+                data.write(bytes);
+            }
+        }
+        data.flush();
+    }
+
+    private static byte[] utf8(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts a Gson tasks file into a binary snapshot.
+     *
+     * @param json   Source JSON file.
+     * @param binary Destination snapshot, replaced atomically.
+     * @param gson   Gson instance that can read {@code LocalDate}.
+     * @throws IOException if either file cannot be accessed.
+     */
+    public static void fromJson(Path json, Path binary, Gson gson) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        TaskStreamLoader.load(json, gson, TaskStreamLoader.DEFAULT_BATCH_SIZE, tasks::addAll);
+        PersistenceService.writeAtomically(binary, out -> write(tasks, out));
+    }
+
+    /**
+     * Exports a binary snapshot back to the Gson tasks format, one task at a time.
+     *
+     * @param binary Source snapshot.
+     * @param json   Destination JSON file, replaced atomically.
+     * @param gson   Gson instance that can write {@code LocalDate}.
+     * @throws IOException if either file cannot be accessed.
+     */
+    public static void toJson(Path binary, Path json, Gson gson) throws IOException {
+        try (BinaryTaskSnapshot snapshot = open(binary)) {
+            PersistenceService.writeAtomically(json, out -> {
+                Writer writer = new OutputStreamWriter(new BufferedOutputStream(out), StandardCharsets.UTF_8);
+                JsonWriter jsonWriter = gson.newJsonWriter(writer);
+                jsonWriter.beginArray();
+                for (int i = 0; i < snapshot.size(); i++) {
+                    gson.toJson(snapshot.get(i), Task.class, jsonWriter);
+                }
+                jsonWriter.endArray();
+                jsonWriter.flush();
+            });
+        }
+    }
+
+    // Usage: BinaryTaskSnapshot (to-binary|to-json) <source> <target>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.out.println("Usage: BinaryTaskSnapshot (to-binary|to-json) <source> <target>");
+            return;
+        }
+        Gson gson = Codecs.gson();
+        if ("to-binary".equals(args[0])) {
+            fromJson(Paths.get(args[1]), Paths.get(args[2]), gson);
+        } else if ("to-json".equals(args[0])) {
+            toJson(Paths.get(args[1]), Paths.get(args[2]), gson);
+        } else {
+            System.out.println("Unknown conversion: " + args[0]);
+            return;
+        }
+        System.out.println("Converted " + args[1] + " to " + args[2] + " (" + Files.size(Paths.get(args[2])) + " bytes)");
+    }
+
+    private String readString(int offset, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(heapStart + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Frees the mapping through the JDK's own cleaner. Where that is not reachable the mapping is
+    // left to the garbage collector, and a replacement of the file may fail until then
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available on this JVM
+        }
+    }
+
+    private static List<String> readDictionary(ByteBuffer header) {
+        int size = header.getInt();
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte[] bytes = new byte[header.getInt()];
+            header.get(bytes);
+            names.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return names;
+    }
+
+    private static void writeDictionary(DataOutputStream data, Map<String, Integer> ids) throws IOException {
+        data.writeInt(ids.size());
+        for (String name : ids.keySet()) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+    }
+}
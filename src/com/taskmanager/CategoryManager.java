@@ -1,74 +1,76 @@
 package com.taskmanager;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
-import java.io.*;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 public class CategoryManager {
-    private static final String FILE_PATH = "medialab/categories.json";
+    private static final SymbolTable symbols = new SymbolTable();
     private List<String> categories = new ArrayList<>();
-    private final Gson gson; // Add Gson field
+    private final StorageBackend storage;
 
     public CategoryManager() {
-        this.gson = new Gson(); // Initialize Gson here if needed for loading
+        this.storage = StorageBackend.configured(Codecs.gson());
         this.categories = loadCategories();
+        categories.forEach(symbols::intern);
+    }
+
+    // Ids of every category name in use, shared by all tasks; see Task.getCategory()
+    public static SymbolTable symbols() {
+        return symbols;
     }
 
     public List<String> getCategories() {
         return categories;
     }
 
-    public void addCategory(String category) {
+    public synchronized void addCategory(String category) {
         if (!categories.contains(category)) {
+            symbols.intern(category);
             categories.add(category);
             saveCategories();
         }
     }
 
-    public void renameCategory(String oldName, String newName, TaskManager taskManager) {
+    public synchronized void renameCategory(String oldName, String newName, TaskManager taskManager) {
         if (categories.contains(oldName) && !categories.contains(newName)) {
             categories.remove(oldName);
             categories.add(newName);
 
-            // Update category in tasks (improved String comparison)
-            for (Task task : taskManager.getTasks()) {
-                if (oldName.equals(task.getCategory())) { // Use .equals()
-                    task.setCategory(newName);
-                }
-            }
-
-            taskManager.updateOverdueTasks(); // Call the method
+            // Tasks refer to the category by id, so usually only the symbol changes; recorded as a single journal entry
+            taskManager.renameCategory(oldName, newName);
             saveCategories();
-            taskManager.saveTasks();
         }
     }
 
-    public void deleteCategory(String category, TaskManager taskManager) {
+    public synchronized void deleteCategory(String category, TaskManager taskManager) {
         if (categories.remove(category)) {
-            // Remove tasks associated with this category (improved with lambda)
-            taskManager.getTasks().removeIf(task -> category.equals(task.getCategory())); // Use .equals()
+            // Remove tasks associated with this category; recorded as a single journal entry
+            taskManager.deleteCategory(category);
             saveCategories();
-            taskManager.saveTasks();
         }
     }
 
     void saveCategories() {
-        try (Writer writer = new FileWriter(FILE_PATH)) {
-            gson.toJson(categories, writer);
-            System.out.println("Categories saved successfully."); // Added for feedback
+        PersistenceService.getInstance().schedule(this, "categories", this::writeCategories);
+    }
+
+    // Runs on the persistence writer thread
+    private void writeCategories() {
+        List<String> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(categories);
+        }
+        try {
+            storage.writeNames("categories", snapshot);
         } catch (IOException e) {
             e.printStackTrace(); // Handle or log the exception
         }
     }
 
     private List<String> loadCategories() {
-        try (Reader reader = new FileReader(FILE_PATH)) {
-            List<String> loadedCategories = gson.fromJson(reader, new TypeToken<List<String>>() {
-            }.getType());
-            return loadedCategories == null ? new ArrayList<>() : loadedCategories; // Handle null case
+        try {
+            return storage.loadNames("categories");
         } catch (IOException e) {
             return new ArrayList<>(); // Return empty list if file not found
         }
@@ -0,0 +1,31 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.time.LocalDate;
+
+/**
+ * The one Gson instance every store, tool and benchmark reads and writes with. Tasks, reminders,
+ * statuses and dates all go through the hand-written streaming adapters ({@link TaskAdapter},
+ * {@link ReminderAdapter}, {@link StatusAdapter}, {@link LocalDateAdapter}) rather than reflection;
+ * only the journal's entry envelope and plain string lists are still bound reflectively.
+ * <p>
+ * Gson instances are thread-safe and cache the adapter chosen for each type, so sharing one also
+ * means each type is looked up once per process instead of once per manager.
+ */
+public final class Codecs {
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Task.class, new TaskAdapter())
+            .registerTypeAdapter(ReminderManager.StoredReminder.class, new ReminderAdapter())
+            .registerTypeAdapter(Task.Status.class, new StatusAdapter())
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .create();
+
+    private Codecs() {
+    }
+
+    public static Gson gson() {
+        return GSON;
+    }
+}
@@ -0,0 +1,283 @@
+package com.taskmanager;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Optional gzip encoding of the JSON stores (tasks.json and reminders.json). Files keep their
+ * names; whether one is compressed is detected from its first two bytes on every read, so the mode
+ * can be switched at any time and both kinds of file keep loading. New files are written in the
+ * mode chosen with {@code -Dtaskly.compression=gzip} (default {@code none}).
+ * <p>
+ * Every read and write is measured per store and mode: bytes on disk, bytes of JSON and time spent.
+ * The totals are published as gauges, e.g. {@code storage.tasks.gzip.ratioPercent},
+ * {@code storage.tasks.gzip.readKBps} and {@code storage.tasks.gzip.writeKBps}, and
+ * {@link Transfer#describe()} summarizes a single read or write for the load messages.
+ */
+public final class Compression {
+    public static final String NONE = "none";
+    public static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_MAGIC = 0x8b1f; // first two bytes, little-endian
+
+    private Compression() {
+    }
+
+    // Read on every write, so the mode can be changed while the application runs
+    public static String configuredMode() {
+        return GZIP.equalsIgnoreCase(System.getProperty("taskly.compression", NONE)) ? GZIP : NONE;
+    }
+
+    /**
+     * Wraps a stream read from a store file, decompressing it if it starts with the gzip header.
+     * Closing the returned stream closes {@code raw} and records the transfer.
+     *
+     * @param raw   The file's bytes as stored.
+     * @param store Name of the store, for the metrics.
+     */
+    public static DecodingStream decode(InputStream raw, String store) throws IOException {
+        CountingInputStream disk = new CountingInputStream(raw);
+        BufferedInputStream buffered = new BufferedInputStream(disk, BUFFER_SIZE);
+        buffered.mark(2);
+        int magic = buffered.read() | (buffered.read() << 8);
+        buffered.reset();
+        if (magic == GZIP_MAGIC) {
+            return new DecodingStream(new GZIPInputStream(buffered, BUFFER_SIZE), disk, store, GZIP);
+        }
+        return new DecodingStream(buffered, disk, store, NONE);
+    }
+
+    /**
+     * Writes a store file in the configured mode and records the transfer.
+     *
+     * @param raw   Receives the file's bytes as stored; not closed.
+     * @param store Name of the store, for the metrics.
+     * @param body  Writes the JSON.
+     */
+    public static Transfer encode(OutputStream raw, String store, PersistenceService.Output body) throws IOException {
+        String mode = configuredMode();
+        long start = System.nanoTime();
+        CountingOutputStream disk = new CountingOutputStream(raw);
+        CountingOutputStream data;
+        GZIPOutputStream gzip = null;
+        if (GZIP.equals(mode)) {
+            gzip = new FastGzipOutputStream(disk);
+            data = new CountingOutputStream(gzip);
+        } else {
+            data = new CountingOutputStream(disk);
+        }
+        body.writeTo(data);
+        data.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+        Transfer transfer = new Transfer(mode, disk.count, data.count, System.nanoTime() - start);
+        Stats.of(store, mode).writes.record(transfer);
+        return transfer;
+    }
+
+    /**
+     * Sizes and duration of one read or write of a store file.
+     */
+    public static final class Transfer {
+        private final String mode;
+        private final long diskBytes;
+        private final long dataBytes;
+        private final long nanos;
+
+        Transfer(String mode, long diskBytes, long dataBytes, long nanos) {
+            this.mode = mode;
+            this.diskBytes = diskBytes;
+            this.dataBytes = dataBytes;
+            this.nanos = nanos;
+        }
+
+        public String getMode() { return mode; }
+
+        public long getDiskBytes() { return diskBytes; }
+
+        public long getDataBytes() { return dataBytes; }
+
+        public long getNanos() { return nanos; }
+
+        /**
+         * @return E.g. {@code gzip, 48.2 MB as 6.1 MB (7.9x), 92 MB/s}, the throughput being of the JSON.
+         */
+        public String describe() {
+            StringBuilder text = new StringBuilder(mode).append(", ").append(megabytes(dataBytes));
+            if (GZIP.equals(mode)) {
+                text.append(" as ").append(megabytes(diskBytes)).append(String.format(Locale.ROOT, " (%.1fx)",
+                        diskBytes == 0 ? 0.0 : (double) dataBytes / diskBytes));
+            }
+            if (nanos > 0) {
+                text.append(String.format(Locale.ROOT, ", %.0f MB/s", dataBytes * 1000.0 / nanos));
+            }
+            return text.toString();
+        }
+
+        private static String megabytes(long bytes) {
+            return String.format(Locale.ROOT, "%.1f MB", bytes / 1_000_000.0);
+        }
+    }
+
+    /**
+     * The decoded content of a store file, see {@link #decode}.
+     */
+    public static final class DecodingStream extends FilterInputStream {
+        private final CountingInputStream disk;
+        private final String store;
+        private final String mode;
+        private final long start = System.nanoTime();
+        private long dataBytes;
+        private Transfer transfer; // set on close
+
+        private DecodingStream(InputStream decoded, CountingInputStream disk, String store, String mode) {
+            super(decoded);
+            this.disk = disk;
+            this.store = store;
+            this.mode = mode;
+        }
+
+        public String getMode() { return mode; }
+
+        // Null until the stream is closed
+        public Transfer getTransfer() { return transfer; }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                dataBytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                dataBytes += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            if (transfer == null) {
+                transfer = new Transfer(mode, disk.count, dataBytes, System.nanoTime() - start);
+                Stats.of(store, mode).reads.record(transfer);
+            }
+        }
+    }
+
+    // Running totals of one store in one mode, published as gauges on first use
+    private static final class Stats {
+        private static final Map<String, Stats> all = new ConcurrentHashMap<>();
+
+        final Direction reads = new Direction();
+        final Direction writes = new Direction();
+
+        static final class Direction {
+            final LongAdder diskBytes = new LongAdder();
+            final LongAdder dataBytes = new LongAdder();
+            final LongAdder nanos = new LongAdder();
+
+            void record(Transfer transfer) {
+                diskBytes.add(transfer.diskBytes);
+                dataBytes.add(transfer.dataBytes);
+                nanos.add(transfer.nanos);
+            }
+
+            // JSON bytes per second, in KB
+            long kilobytesPerSecond() {
+                long elapsed = nanos.sum();
+                return elapsed == 0 ? 0 : dataBytes.sum() * 1_000_000L / elapsed;
+            }
+        }
+
+        static Stats of(String store, String mode) {
+            return all.computeIfAbsent(store + "." + mode, name -> {
+                Stats stats = new Stats();
+                Metrics metrics = Metrics.getInstance();
+                String prefix = "storage." + name + ".";
+                // JSON size as a percentage of the size on disk, over everything read and written
+                metrics.gauge(prefix + "ratioPercent", () -> {
+                    long disk = stats.reads.diskBytes.sum() + stats.writes.diskBytes.sum();
+                    long data = stats.reads.dataBytes.sum() + stats.writes.dataBytes.sum();
+                    return disk == 0 ? 0 : data * 100 / disk;
+                });
+                metrics.gauge(prefix + "readKBps", stats.reads::kilobytesPerSecond);
+                metrics.gauge(prefix + "writeKBps", stats.writes::kilobytesPerSecond);
+                return stats;
+            });
+        }
+    }
+
+    // Level 1: the stores are rewritten on every burst of edits, and repeated field names and
+    // category strings already compress well at the fastest level
+    private static final class FastGzipOutputStream extends GZIPOutputStream {
+        FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
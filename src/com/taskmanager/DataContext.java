@@ -0,0 +1,138 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * The application's data layer: one instance of each manager, shared by everything that needs it.
+ * {@link #start(Gson)} loads tasks, reminders, categories and priorities in parallel on background
+ * threads, so the window can be built while they load, and times each phase with a {@link StartupTimer}.
+ * Once everything is loaded, changes other programs make to the data files are merged in, see
+ * {@link DataWatcher}.
+ */
+public class DataContext {
+    private static final String TIMINGS_PATH = "medialab/startup-timings.csv";
+    private static final String METRICS_PATH = "medialab/metrics.txt";
+
+    private final StartupTimer timer = new StartupTimer();
+    private final TaskManager taskManager;
+    private final CompletableFuture<ReminderManager> reminderManager;
+    private final CompletableFuture<CategoryManager> categoryManager;
+    private final CompletableFuture<PriorityManager> priorityManager;
+    private final CompletableFuture<Void> ready;
+    private volatile Consumer<List<Task>> batchListener;
+
+    private DataContext(Gson gson) {
+        ExecutorService loaders = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "taskly-startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        taskManager = TaskManager.deferred(gson);
+        timer.begin("tasks");
+        CompletableFuture<Void> tasksLoaded = taskManager.loadInBackground(batch -> {
+            Consumer<List<Task>> listener = batchListener;
+            if (listener != null) {
+                listener.accept(batch);
+            }
+        }).whenComplete((ignored, error) -> timer.end("tasks"));
+        categoryManager = CompletableFuture.supplyAsync(() -> timer.time("categories", CategoryManager::new), loaders);
+        priorityManager = CompletableFuture.supplyAsync(() -> timer.time("priorities", PriorityManager::new), loaders);
+        // The reminders file is read right away; matching reminders to tasks waits for the tasks
+        timer.begin("reminders");
+        reminderManager = CompletableFuture.supplyAsync(
+                () -> timer.time("reminders file", () -> new ReminderManager(gson, taskManager)), loaders);
+        CompletableFuture<Void> remindersResolved = reminderManager.thenCompose(ReminderManager::whenLoaded)
+                .whenComplete((ignored, error) -> timer.end("reminders"));
+        ready = CompletableFuture.allOf(tasksLoaded, remindersResolved, categoryManager, priorityManager)
+                .whenComplete((ignored, error) -> loaders.shutdown());
+        ready.thenRun(() -> watch(gson));
+    }
+
+    // Merges the changes other programs make to the data files, unless -Dtaskly.watch=false
+    private void watch(Gson gson) {
+        List<Path> directories = StorageBackend.configured(gson).getDirectories();
+        if (directories.isEmpty() || !Boolean.parseBoolean(System.getProperty("taskly.watch", "true"))) {
+            return;
+        }
+        ReminderManager reminders = getReminderManager();
+        try {
+            for (Path directory : directories) {
+                Files.createDirectories(directory); // A directory created later would not be watched
+            }
+            DataWatcher.start(directories, () -> {
+                taskManager.checkForOutsideChanges();
+                reminders.checkForOutsideChanges();
+            });
+        } catch (IOException e) {
+            System.err.println("Could not watch " + directories + " for outside changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts loading every store. Returns at once; the getters wait for their store where needed.
+     * Also publishes the {@link Metrics}: through JMX, and to medialab/metrics.txt every
+     * {@code taskly.metrics.interval} seconds (60 by default, 0 for JMX only).
+     *
+     * @param gson The Gson instance used for tasks and reminders.
+     * @return The context, still loading.
+     */
+    public static DataContext start(Gson gson) {
+        Metrics.getInstance().publish(Paths.get(METRICS_PATH), Long.getLong("taskly.metrics.interval", 60));
+        return new DataContext(gson);
+    }
+
+    // Available at once; its tasks arrive later, see TaskManager.whenLoaded()
+    public TaskManager getTaskManager() {
+        return taskManager;
+    }
+
+    // The getters below block until their file has been read. Reminders are matched to tasks later, see ReminderManager.whenLoaded()
+    public ReminderManager getReminderManager() {
+        return reminderManager.join();
+    }
+
+    public CategoryManager getCategoryManager() {
+        return categoryManager.join();
+    }
+
+    public PriorityManager getPriorityManager() {
+        return priorityManager.join();
+    }
+
+    /**
+     * Receives the batches of tasks parsed from now on, on the loader thread. Batches parsed before
+     * the listener was set are not replayed; the reload event at the end of the load covers them.
+     */
+    public void setTaskBatchListener(Consumer<List<Task>> listener) {
+        this.batchListener = listener;
+    }
+
+    // Completes once every store is loaded and reminders are matched to their tasks
+    public CompletableFuture<Void> whenReady() {
+        return ready;
+    }
+
+    public StartupTimer getTimer() {
+        return timer;
+    }
+
+    // Prints the startup timings and appends them to medialab/startup-timings.csv
+    public void reportStartup() {
+        System.out.print(timer.report());
+        try {
+            timer.appendTo(Paths.get(TIMINGS_PATH));
+        } catch (IOException e) {
+            System.err.println("Could not record startup timings: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.taskmanager;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notices when another program, e.g. a sync tool or a second copy of the app, changes the files in
+ * the data directory, and tells the managers to merge the change in (see
+ * {@link TaskManager#checkForOutsideChanges()} and {@link ReminderManager#checkForOutsideChanges()}).
+ * The check itself runs on the persistence writer thread, which tells the app's own writes apart
+ * from outside ones; this class only wakes it up once a burst of file events has settled.
+ * Temporary files, the journal, and the metrics and startup timings {@link DataContext} appends
+ * to are ignored, since the app is their only writer.
+ */
+public class DataWatcher {
+    private static final long SETTLE_MILLIS = 300;
+    private static final Set<String> APP_ONLY = Set.of("metrics.txt", "startup-timings.csv");
+
+    private final WatchService watchService;
+    private final Runnable onChange;
+
+    private DataWatcher(WatchService watchService, Runnable onChange) {
+        this.watchService = watchService;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Starts watching on a daemon thread.
+     *
+     * @param directories The directories to watch, e.g. the data directory and the task shards under
+     *                    it; files in other subdirectories are not watched.
+     * @param onChange    Runs on the watcher thread after files in the directories changed.
+     * @return The watcher, to be {@link #stop() stopped} when no longer needed.
+     * @throws IOException if a directory cannot be watched.
+     */
+    public static DataWatcher start(List<Path> directories, Runnable onChange) throws IOException {
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        for (Path directory : directories) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        DataWatcher watcher = new DataWatcher(watchService, onChange);
+        Thread thread = new Thread(watcher::run, "taskly-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    public void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean changed = drain(watchService.take());
+                // A replaced file usually arrives as several events; wait until they stop
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+                if (changed) {
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    // Whether any of the key's events may be another program's change
+    private static boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true; // Events were lost
+                continue;
+            }
+            String name = event.context().toString();
+            if (!name.endsWith(".tmp") && !name.endsWith(".journal") && !APP_ONLY.contains(name)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
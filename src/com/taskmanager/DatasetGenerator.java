@@ -0,0 +1,238 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds synthetic {@code medialab/} stores (tasks, reminders, categories and priorities) for
+ * benchmarks and load testing. The output depends only on the task count, the seed and the reference
+ * day, so a dataset can be rebuilt byte for byte instead of being shared.
+ * <p>
+ * The data is shaped after real lists: a few categories hold most tasks, most tasks have the default
+ * priority, deadlines cluster around the next few weeks with a long tail either side, tasks past
+ * their deadline are either completed or already marked delayed, and about a third of the open
+ * tasks with a deadline have one to three reminders before it.
+ * <p>
+ * Usage: {@code DatasetGenerator <task count> [directory] [seed] [reference day]}. The stores are
+ * written to {@code <directory>/medialab/}, which must be empty or hold an earlier generated dataset.
+ */
+public class DatasetGenerator {
+    public static final long DEFAULT_SEED = 42;
+    // Present in every generated medialab/ directory, so real data is never overwritten
+    static final String MARKER_FILE = ".generated";
+
+    private static final String[] CATEGORIES = {
+            "Work", "Personal", "School", "Home", "Family", "Health",
+            "Finance", "Travel", "Shopping", "Errands", "Hobbies", "Fitness"};
+    private static final String[] PRIORITIES = {"Default", "Medium", "High", "Low"};
+    private static final int[] PRIORITY_WEIGHTS = {50, 25, 15, 10};
+    private static final String[] VERBS = {
+            "Finish", "Review", "Call", "Email", "Buy", "Book", "Fix", "Plan", "Prepare", "Clean",
+            "Pay", "Update", "Schedule", "Write", "Read", "Submit", "Organize", "Check", "Renew", "Send"};
+    private static final String[] OBJECTS = {
+            "report", "homework", "presentation", "groceries", "tickets", "car", "budget", "meeting",
+            "invoice", "insurance", "passport", "dentist appointment", "garden", "kitchen", "notes",
+            "project proposal", "tax return", "birthday gift", "gym membership", "library books",
+            "slides", "thesis draft", "rent", "bike", "newsletter", "contract", "backup", "laptop"};
+    private static final String[] QUALIFIERS = {
+            "for Monday", "before the trip", "with Anna", "for the team", "for mom", "this week",
+            "at the office", "online", "for the exam", "again", "for the client", "at home"};
+    private static final String[] DESCRIPTION_WORDS = {
+            "remember", "to", "bring", "the", "documents", "ask", "about", "deadline", "check", "price",
+            "call", "first", "list", "items", "confirm", "time", "address", "notes", "attach", "copy",
+            "meeting", "room", "budget", "draft", "final", "version", "send", "reply", "before", "noon"};
+
+    private final Random random;
+    private final LocalDate today;
+    private final String[] categories;
+
+    /**
+     * @param tasks The number of tasks that will be generated; larger lists get more categories.
+     * @param seed  Seed of the pseudo-random sequence.
+     * @param today The reference day deadlines and statuses are relative to.
+     */
+    public DatasetGenerator(int tasks, long seed, LocalDate today) {
+        this.random = new Random(seed);
+        this.today = today;
+        // Big lists are split into more categories: one extra project per 10,000 tasks
+        int projects = tasks / 10_000;
+        this.categories = new String[CATEGORIES.length + projects];
+        System.arraycopy(CATEGORIES, 0, categories, 0, CATEGORIES.length);
+        for (int i = 0; i < projects; i++) {
+            categories[CATEGORIES.length + i] = "Project " + (i + 1);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: DatasetGenerator <task count> [directory] [seed] [reference day]");
+            return;
+        }
+        int count = Integer.parseInt(args[0].replace("_", ""));
+        Path directory = Paths.get(args.length > 1 ? args[1] : ".");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        LocalDate today = args.length > 3 ? LocalDate.parse(args[3]) : LocalDate.now();
+        long start = System.nanoTime();
+        int reminders = generate(directory, count, seed, today);
+        System.out.println("Generated " + count + " tasks and " + reminders + " reminders in "
+                + directory.resolve("medialab") + " (" + (System.nanoTime() - start) / 1_000_000 + " ms)");
+    }
+
+    /**
+     * Writes a dataset to {@code <directory>/medialab/}, replacing an earlier generated one.
+     *
+     * @return The number of reminders written.
+     * @throws IOException if the stores cannot be written, or the directory holds data that was not generated.
+     */
+    public static int generate(Path directory, int count, long seed, LocalDate today) throws IOException {
+        Path medialab = directory.resolve("medialab");
+        Path marker = medialab.resolve(MARKER_FILE);
+        if (Files.isDirectory(medialab) && !Files.exists(marker)) {
+            try (var entries = Files.list(medialab)) {
+                if (entries.findAny().isPresent()) {
+                    throw new IOException(medialab + " holds data that was not generated; refusing to overwrite it");
+                }
+            }
+        }
+        Files.createDirectories(medialab);
+        Files.write(marker, ("tasks=" + count + " seed=" + seed + " day=" + today + "\n").getBytes(StandardCharsets.UTF_8));
+        // A journal or binary snapshot from an earlier run would be replayed over the new tasks
+        Files.deleteIfExists(medialab.resolve("tasks.journal"));
+        Files.deleteIfExists(medialab.resolve("tasks.bin"));
+        return new DatasetGenerator(count, seed, today).write(medialab, count);
+    }
+
+    private int write(Path medialab, int count) throws IOException {
+        Gson gson = Codecs.gson();
+        int reminderCount = 0;
+        // Tasks and reminders are streamed side by side, so no list of a million tasks is ever held
+        try (Writer tasks = newWriter(medialab.resolve("tasks.json"));
+             JsonWriter reminders = new JsonWriter(newWriter(medialab.resolve("reminders.json")))) {
+            tasks.write('[');
+            reminders.beginArray();
+            for (int id = 1; id <= count; id++) {
+                Task task = nextTask(id);
+                if (id > 1) {
+                    tasks.write(',');
+                }
+                gson.toJson(task, Task.class, tasks);
+                reminderCount += writeReminders(task, reminders);
+            }
+            tasks.write(']');
+            reminders.endArray();
+        }
+        writeList(gson, medialab.resolve("categories.json"), List.of(categories));
+        writeList(gson, medialab.resolve("priorities.json"), List.of(PRIORITIES));
+        return reminderCount;
+    }
+
+    Task nextTask(long id) {
+        String title = VERBS[random.nextInt(VERBS.length)] + " " + OBJECTS[random.nextInt(OBJECTS.length)];
+        if (random.nextInt(3) == 0) {
+            title += " " + QUALIFIERS[random.nextInt(QUALIFIERS.length)];
+        }
+        Task task = new Task(title, nextDescription(), nextCategory(), nextPriority(), nextDeadline());
+        task.setId(id);
+        task.setStatus(nextStatus(task.getDeadline()));
+        return task;
+    }
+
+    private String nextDescription() {
+        if (random.nextInt(10) < 3) {
+            return "";
+        }
+        int words = 3 + random.nextInt(12);
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                description.append(' ');
+            }
+            description.append(DESCRIPTION_WORDS[random.nextInt(DESCRIPTION_WORDS.length)]);
+        }
+        return description.toString();
+    }
+
+    // Zipf-like: the first categories are by far the most used
+    private String nextCategory() {
+        double u = random.nextDouble();
+        int index = (int) (categories.length * u * u * u);
+        return categories[Math.min(index, categories.length - 1)];
+    }
+
+    private String nextPriority() {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            roll -= PRIORITY_WEIGHTS[i];
+            if (roll < 0) {
+                return PRIORITIES[i];
+            }
+        }
+        return PRIORITIES[0];
+    }
+
+    // One task in ten has no deadline; the rest are centred a week ahead, a quarter of them already past
+    private LocalDate nextDeadline() {
+        if (random.nextInt(10) == 0) {
+            return null;
+        }
+        long offset = Math.round(7 + random.nextGaussian() * 30);
+        return today.plusDays(offset);
+    }
+
+    // Consistent with the overdue sweep: nothing is left for it to mark on the reference day
+    private Task.Status nextStatus(LocalDate deadline) {
+        int roll = random.nextInt(100);
+        if (deadline != null && deadline.isBefore(today)) {
+            return roll < 60 ? Task.Status.COMPLETED : Task.Status.DELAYED;
+        }
+        if (roll < 55) {
+            return Task.Status.OPEN;
+        } else if (roll < 85) {
+            return Task.Status.IN_PROGRESS;
+        } else if (roll < 95) {
+            return Task.Status.POSTPONED;
+        }
+        return Task.Status.COMPLETED;
+    }
+
+    // In the reference format of ReminderManager: {"taskId", "reminderDate", "isShown"}
+    private int writeReminders(Task task, JsonWriter out) throws IOException {
+        if (task.getDeadline() == null || task.getStatus() == Task.Status.COMPLETED || random.nextInt(3) != 0) {
+            return 0;
+        }
+        int[] daysBefore = {1, 3, 7};
+        int reminders = 1 + random.nextInt(daysBefore.length);
+        for (int i = 0; i < reminders; i++) {
+            LocalDate date = task.getDeadline().minusDays(daysBefore[i]);
+            out.beginObject();
+            out.name("taskId").value(task.getId());
+            out.name("reminderDate").value(DateCodec.format(date));
+            out.name("isShown").value(date.isBefore(today));
+            out.endObject();
+        }
+        return reminders;
+    }
+
+    private static void writeList(Gson gson, Path path, List<String> values) throws IOException {
+        try (Writer out = newWriter(path)) {
+            gson.toJson(new ArrayList<>(values), out);
+        }
+    }
+
+    private static Writer newWriter(Path path) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8));
+    }
+}
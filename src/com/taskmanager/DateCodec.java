@@ -0,0 +1,132 @@
+package com.taskmanager;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converts between {@link LocalDate} and the {@code yyyy-MM-dd} form every store uses, without a
+ * {@link java.time.format.DateTimeFormatter}. Parsing reads the ten characters directly and never
+ * throws; anything else, such as the years beyond 9999 that {@link #format} writes, goes through
+ * {@link LocalDate#parse}, and malformed input gives {@code null}. Dates and their text are kept in a small
+ * direct-mapped cache, so the few hundred distinct deadlines of a large file are each created once
+ * and a lookup that hits allocates nothing.
+ */
+public final class DateCodec {
+    private static final int CACHE_SIZE = 4096; // a power of two
+    private static final Entry[] cache = new Entry[CACHE_SIZE]; // racy by design: entries are immutable
+
+    // A date together with its text; both are final, so an entry is safe to read without locking
+    private static final class Entry {
+        final int key; // yyyymmdd
+        final LocalDate date;
+        final String text;
+
+        Entry(int key, LocalDate date, String text) {
+            this.key = key;
+            this.date = date;
+            this.text = text;
+        }
+    }
+
+    private DateCodec() {
+    }
+
+    /**
+     * @return The date, or {@code null} if the text is not a valid ISO date.
+     */
+    public static LocalDate parse(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return parseSlow(text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return null;
+        }
+        int key = year * 10000 + month * 100 + day;
+        Entry entry = cache[slot(key)];
+        if (entry == null || entry.key != key) {
+            entry = cache(key, LocalDate.of(year, month, day));
+        }
+        return entry.date;
+    }
+
+    /**
+     * @return The date as {@code yyyy-MM-dd}. Years outside 0000-9999 fall back to {@link LocalDate#toString()}.
+     */
+    public static String format(LocalDate date) {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            return date.toString();
+        }
+        int key = year * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+        Entry entry = cache[slot(key)];
+        if (entry == null || entry.key != key) {
+            entry = cache(key, date);
+        }
+        return entry.text;
+    }
+
+    // Extended years like +10000-01-01, or text that is not a date at all
+    private static LocalDate parseSlow(CharSequence text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Entry cache(int key, LocalDate date) {
+        char[] text = new char[10];
+        write(text, 0, 4, date.getYear());
+        text[4] = '-';
+        write(text, 5, 7, date.getMonthValue());
+        text[7] = '-';
+        write(text, 8, 10, date.getDayOfMonth());
+        Entry entry = new Entry(key, date, new String(text));
+        cache[slot(key)] = entry;
+        return entry;
+    }
+
+    private static int slot(int key) {
+        return (key * 0x9E3779B9 >>> 20) & (CACHE_SIZE - 1);
+    }
+
+    // The decimal value of text[from, to), or -1 if it is not all digits
+    private static int digits(CharSequence text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void write(char[] text, int from, int to, int value) {
+        for (int i = to - 1; i >= from; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
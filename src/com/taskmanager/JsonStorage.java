@@ -0,0 +1,99 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The default backend: JSON files under medialab/. Tasks are kept in tasks.json with its journal
+ * ({@link JsonTaskStore}), or one file per category with {@code -Dtaskly.storage=sharded}
+ * ({@link TaskShards}); reminders in reminders.json, categories and priorities in categories.json
+ * and priorities.json. Tasks and reminders may be gzip-compressed, see {@link Compression}.
+ */
+final class JsonStorage implements StorageBackend {
+    private static final Path DIRECTORY = Paths.get("medialab");
+    private static final Path REMINDERS_PATH = DIRECTORY.resolve("reminders.json");
+
+    private final Gson gson;
+
+    JsonStorage(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public TaskStore openTasks(boolean journaled) {
+        return TaskShards.isEnabled() ? new TaskShards(gson) : new JsonTaskStore(gson, journaled);
+    }
+
+    @Override
+    public List<Path> getDirectories() {
+        return TaskShards.isEnabled() ? List.of(DIRECTORY, TaskShards.DIRECTORY) : List.of(DIRECTORY);
+    }
+
+    @Override
+    public List<ReminderManager.StoredReminder> loadReminders() throws IOException {
+        Object seen = PersistenceService.fingerprint(REMINDERS_PATH);
+        Compression.DecodingStream in;
+        try {
+            in = Compression.decode(Files.newInputStream(REMINDERS_PATH), "reminders"); // Plain or gzip-compressed
+        } catch (NoSuchFileException e) {
+            return new ArrayList<>();
+        }
+        List<ReminderManager.StoredReminder> reminders;
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            reminders = gson.fromJson(reader, new TypeToken<List<ReminderManager.StoredReminder>>() {}.getType());
+        }
+        System.out.println("Reminders loaded from " + REMINDERS_PATH + " (" + in.getTransfer().describe() + ")");
+        PersistenceService.remember(REMINDERS_PATH, seen);
+        return reminders == null ? new ArrayList<>() : reminders;
+    }
+
+    @Override
+    public List<ReminderManager.StoredReminder> reloadReminders() throws IOException {
+        if (PersistenceService.isUnchanged(REMINDERS_PATH) || !Files.exists(REMINDERS_PATH)) {
+            return null; // A missing file is taken for one being replaced, not for every reminder deleted
+        }
+        try {
+            return loadReminders();
+        } catch (JsonParseException e) {
+            throw new IOException("Cannot parse " + REMINDERS_PATH, e); // Probably still being written
+        }
+    }
+
+    @Override
+    public void writeReminders(List<ReminderManager.StoredReminder> reminders) throws IOException {
+        byte[] json = gson.toJson(reminders).getBytes(StandardCharsets.UTF_8);
+        PersistenceService.writeAtomically(REMINDERS_PATH,
+                out -> Compression.encode(out, "reminders", data -> data.write(json)));
+    }
+
+    @Override
+    public List<String> loadNames(String store) throws IOException {
+        try (Reader reader = Files.newBufferedReader(namesPath(store), StandardCharsets.UTF_8)) {
+            List<String> names = gson.fromJson(reader, new TypeToken<List<String>>() {}.getType());
+            return names == null ? new ArrayList<>() : names;
+        } catch (NoSuchFileException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void writeNames(String store, List<String> names) throws IOException {
+        PersistenceService.writeAtomically(namesPath(store), out -> out.write(gson.toJson(names).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Path namesPath(String store) {
+        return DIRECTORY.resolve(store + ".json");
+    }
+}
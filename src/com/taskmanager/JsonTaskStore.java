@@ -0,0 +1,253 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The task store as one file: medialab/tasks.json (or tasks.bin with {@code -Dtaskly.snapshot=binary}),
+ * optionally with a {@link TaskJournal} next to it. With the journal, each write appends the tasks
+ * that changed since the previous one and folds the journal back into a new snapshot once it has
+ * grown past its threshold; without it, every write is a full snapshot. Every task is read at
+ * startup, and again by {@link #reload()} when another program replaces the snapshot.
+ */
+final class JsonTaskStore implements TaskStore {
+    static final Path FILE_PATH = Paths.get("medialab", "tasks.json");
+    static final Path JOURNAL_PATH = Paths.get("medialab", "tasks.journal");
+    private static final Path BINARY_PATH = Paths.get("medialab", "tasks.bin");
+
+    private final Gson gson;
+    private final TaskJournal journal; // null when every write is a full snapshot
+    private final boolean binarySnapshot = "binary".equals(System.getProperty("taskly.snapshot", "json"));
+    private volatile Path snapshotPath = FILE_PATH; // the file last read or written
+    private long nextId = 1; // only used while loading
+    private boolean idsAssigned; // tasks without an id, or with a clashing one, were given a new id
+
+    JsonTaskStore(Gson gson, boolean journaled) {
+        this.gson = gson;
+        this.journal = journaled ? new TaskJournal(JOURNAL_PATH, gson) : null;
+    }
+
+    // Reads tasks.json and replays its journal, for moving the tasks to another store
+    static Loaded readForMigration(Gson gson, Consumer<List<Task>> onBatch) {
+        Loaded loaded = new JsonTaskStore(gson, true).load(onBatch, true);
+        return new Loaded(loaded.getTasks(), loaded.getNextId(), true);
+    }
+
+    // Caller is the manager's constructor or loader thread
+    @Override
+    public Loaded load(Consumer<List<Task>> onBatch, boolean all) {
+        Map<Long, Task> loadedTasks = new LinkedHashMap<>();
+        int[] withoutId = {0}; // tasks written before tasks had ids, or with a clashing id
+        long length = 0;
+        long checksum = 0;
+        // In binary mode an existing tasks.json is still read once, until the first snapshot is written
+        Path path = binarySnapshot && Files.exists(BINARY_PATH) ? BINARY_PATH : FILE_PATH;
+        snapshotPath = path;
+        Consumer<List<Task>> collect = batch -> {
+            for (Task task : batch) {
+                if (task.getId() <= 0 || loadedTasks.containsKey(task.getId())) {
+                    loadedTasks.put((long) -++withoutId[0], task); // Temporary key keeps file order until an id is assigned
+                } else {
+                    loadedTasks.put(task.getId(), task);
+                    nextId = Math.max(nextId, task.getId() + 1);
+                }
+            }
+            onBatch.accept(batch);
+        };
+        try {
+            Object seen = PersistenceService.fingerprint(path);
+            TaskStreamLoader.Result result = read(path, collect);
+            PersistenceService.remember(path, seen);
+            length = result.getLength();
+            checksum = result.getChecksum();
+            System.out.println("Tasks loaded from " + path
+                    + (result.getTransfer() == null ? "" : " (" + result.getTransfer().describe() + ")"));
+        } catch (IOException e) {
+            System.out.println("No tasks file found or error reading " + path + ", starting with empty tasks.");
+        }
+        Map<Long, Task> result = loadedTasks;
+        if (withoutId[0] > 0) {
+            result = new LinkedHashMap<>();
+            for (Map.Entry<Long, Task> loaded : loadedTasks.entrySet()) {
+                Task task = loaded.getValue();
+                if (loaded.getKey() < 0) {
+                    task.setId(nextId++);
+                }
+                result.put(task.getId(), task);
+            }
+            idsAssigned = true;
+        }
+        replay(result, length, checksum);
+        return new Loaded(new ArrayList<>(result.values()), nextId, idsAssigned);
+    }
+
+    private TaskStreamLoader.Result read(Path path, Consumer<List<Task>> onBatch) throws IOException {
+        return path.equals(BINARY_PATH)
+                ? BinaryTaskSnapshot.load(path, TaskStreamLoader.DEFAULT_BATCH_SIZE, onBatch)
+                : TaskStreamLoader.load(path, gson, TaskStreamLoader.DEFAULT_BATCH_SIZE, onBatch);
+    }
+
+    /**
+     * Reads the snapshot again if another program replaced it. The journal was written against the
+     * old snapshot, so it is started over on the new one; edits the manager has not written yet are
+     * appended to it as usual. A missing snapshot is taken for one that is being replaced.
+     */
+    @Override
+    public List<Task> reload() throws IOException {
+        Path path = snapshotPath;
+        if (PersistenceService.isUnchanged(path) || !Files.exists(path)) {
+            return null;
+        }
+        Object seen = PersistenceService.fingerprint(path);
+        List<Task> tasks = new ArrayList<>();
+        TaskStreamLoader.Result result;
+        try {
+            result = read(path, tasks::addAll);
+        } catch (JsonParseException e) {
+            throw new IOException("Cannot parse " + path, e); // Probably still being written
+        }
+        PersistenceService.remember(path, seen);
+        if (journal != null) {
+            journal.reset(result.getLength(), result.getChecksum());
+        }
+        return tasks;
+    }
+
+    private void replay(Map<Long, Task> loadedTasks, long length, long checksum) {
+        if (journal == null) {
+            return;
+        }
+        List<TaskJournal.Entry> entries = journal.read(length, checksum);
+        for (TaskJournal.Entry entry : entries) {
+            apply(loadedTasks, entry);
+        }
+        if (!entries.isEmpty()) {
+            System.out.println("Replayed " + entries.size() + " journal entries from " + JOURNAL_PATH);
+        }
+    }
+
+    private void apply(Map<Long, Task> tasks, TaskJournal.Entry entry) {
+        switch (entry.op) {
+            case ADD:
+                if (entry.task.getId() == 0) {
+                    entry.task.setId(nextId++); // Journal written before tasks had ids
+                    idsAssigned = true;
+                }
+                nextId = Math.max(nextId, entry.task.getId() + 1);
+                tasks.put(entry.task.getId(), entry.task); // Replacing a value keeps its position
+                break;
+            case REMOVE:
+                Task removed = entry.id != null ? tasks.get(entry.id) : taskAt(tasks, entry.index);
+                if (removed != null) {
+                    tasks.remove(removed.getId());
+                }
+                break;
+            case RENAME_CATEGORY:
+                for (Task task : tasks.values()) {
+                    if (entry.from.equals(task.getCategory())) {
+                        task.setCategory(entry.to);
+                    }
+                }
+                break;
+            case DELETE_CATEGORY:
+                tasks.values().removeIf(task -> entry.from.equals(task.getCategory()));
+                break;
+            case RENAME_PRIORITY:
+                for (Task task : tasks.values()) {
+                    if (entry.from.equals(task.getPriority())) {
+                        task.setPriority(entry.to);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Positional lookup, only needed to replay journals written before tasks had ids
+    private static Task taskAt(Map<Long, Task> tasks, Integer index) {
+        if (index == null || index < 0 || index >= tasks.size()) {
+            return null;
+        }
+        Iterator<Task> iterator = tasks.values().iterator();
+        for (int i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    /**
+     * Appends the changes to the journal, or writes a snapshot when one was requested, there is no
+     * journal, or the journal has grown past its compaction threshold. A changed task is journaled
+     * as an {@link TaskJournal.Op#ADD} of its current state, which replaces it on replay.
+     */
+    @Override
+    public void write(TaskChanges changes) throws IOException {
+        TaskSnapshot snapshot = changes.getSnapshot();
+        if (!changes.isFull() && journal != null && journal.isAttached()) {
+            List<String> lines = new ArrayList<>();
+            for (TaskJournal.Entry rename : changes.getRenames()) {
+                lines.add(journal.encode(rename));
+            }
+            for (long id : changes.getWritten()) {
+                lines.add(journal.encode(TaskJournal.Entry.add(snapshot.get(id).toTask())));
+            }
+            for (long id : changes.getRemoved()) {
+                lines.add(journal.encode(TaskJournal.Entry.remove(id)));
+            }
+            try {
+                journal.append(lines);
+                if (!journal.needsCompaction()) {
+                    return;
+                }
+            } catch (IOException e) {
+                e.printStackTrace(); // Fall back to a full snapshot so the edits are not lost
+            }
+        }
+        writeSnapshot(snapshot);
+    }
+
+    // The snapshot is immutable, so it is written without any lock
+    private void writeSnapshot(TaskSnapshot snapshot) throws IOException {
+        Path path = binarySnapshot ? BINARY_PATH : FILE_PATH;
+        snapshotPath = path;
+        CRC32 checksum = new CRC32();
+        PersistenceService.writeAtomically(path, out -> {
+            CheckedOutputStream checked = new CheckedOutputStream(out, checksum);
+            if (binarySnapshot) {
+                BinaryTaskSnapshot.write(snapshot.toTasks(), checked);
+            } else {
+                // The checksum is of the bytes as stored, like the loader's
+                Compression.encode(checked, "tasks", json -> {
+                    JsonWriter writer = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8)));
+                    writer.beginArray();
+                    for (TaskRecord record : snapshot) {
+                        gson.toJson(record.toTask(), Task.class, writer);
+                    }
+                    writer.endArray();
+                    writer.flush();
+                });
+            }
+        });
+        if (journal != null) {
+            journal.reset(Files.size(path), checksum.getValue());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.taskmanager;
+
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Search-as-you-type for the task list. Each call to {@link #search} supersedes the previous one:
+ * the query runs on a background thread once the input has been quiet for a short while, and only
+ * the results of the latest query are handed to the FX thread. A superseded query stops at its next
+ * check of the generation counter instead of running to the end. Queries read the lock-free
+ * snapshot, so neither the FX thread nor the writer waits on one, and typing stays responsive
+ * however many tasks there are. Only the best {@value #MAX_RESULTS}
+ * matches are shown.
+ */
+public class LiveSearch {
+    private static final long DEBOUNCE_MILLIS = 150;
+    private static final int MAX_RESULTS = 1000; // the best matches shown; the store returns no more rows than this
+
+    private final TaskManager taskManager;
+    private final Consumer<List<Task>> onResults;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "taskly-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong generation = new AtomicLong(); // bumped by every new query and by cancel()
+    private Future<?> pending; // FX thread only
+
+    /**
+     * @param taskManager The tasks to search.
+     * @param onResults   Receives the results of the latest query, on the FX thread.
+     */
+    public LiveSearch(TaskManager taskManager, Consumer<List<Task>> onResults) {
+        this.taskManager = taskManager;
+        this.onResults = onResults;
+    }
+
+    /**
+     * Runs a query once the input has settled, see {@link TaskManager#searchRanked}. Call on the FX thread.
+     */
+    public void search(String query, String priorityFilter, String categoryFilter) {
+        submit(query, priorityFilter, categoryFilter, DEBOUNCE_MILLIS);
+    }
+
+    // Same as search(), without waiting for more input; for an explicit "Search" action
+    public void searchNow(String query, String priorityFilter, String categoryFilter) {
+        submit(query, priorityFilter, categoryFilter, 0);
+    }
+
+    // Drops the pending query, if any, and stops any query still running at its next check
+    public void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false); // Not interrupted: an interrupt during file I/O closes the database's channel
+            pending = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void submit(String query, String priorityFilter, String categoryFilter, long delayMillis) {
+        cancel();
+        long current = generation.get();
+        pending = executor.schedule(() -> {
+            if (generation.get() != current) {
+                return; // Superseded while waiting
+            }
+            List<Task> results;
+            try {
+                results = taskManager.searchRanked(query, priorityFilter, categoryFilter, MAX_RESULTS,
+                        () -> generation.get() != current);
+            } catch (CancellationException e) {
+                return; // Superseded while running
+            }
+            if (generation.get() == current) {
+                Platform.runLater(() -> {
+                    // A newer query may have been typed while this one was queued for the FX thread
+                    if (generation.get() == current) {
+                        onResults.accept(results);
+                    }
+                });
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
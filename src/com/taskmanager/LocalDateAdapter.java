@@ -7,13 +7,15 @@ import com.google.gson.stream.JsonToken;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.LongAdder;
 
 public class LocalDateAdapter extends TypeAdapter<LocalDate> {
+    private static final LongAdder UNREADABLE = Metrics.getInstance().counter("json.unreadableDates");
 
-    private final DateTimeFormatter formatter;
+    private final DateTimeFormatter formatter; // null for the default format, which DateCodec handles
 
     public LocalDateAdapter() {
-        this("yyyy-MM-dd"); // Default format
+        this.formatter = null; // Default format, yyyy-MM-dd
     }
 
     public LocalDateAdapter(String pattern) {
@@ -25,23 +27,32 @@ public class LocalDateAdapter extends TypeAdapter<LocalDate> {
         if (date == null) {
             out.nullValue();
         } else {
-            out.value(formatter.format(date));
+            out.value(formatter == null ? DateCodec.format(date) : formatter.format(date));
         }
     }
 
+    // An unreadable date is read as null and counted in the json.unreadableDates metric
     @Override
     public LocalDate read(JsonReader in) throws IOException {
         if (in.peek() == JsonToken.NULL) {
             in.nextNull();
             return null;
-        } else {
-            String dateString = in.nextString();
-            try {
-                return LocalDate.parse(dateString, formatter);
-            } catch (java.time.format.DateTimeParseException e) {
-                System.err.println("Error parsing date: " + dateString);
-                return null;
-            }
+        }
+        LocalDate date = parse(in.nextString());
+        if (date == null) {
+            UNREADABLE.increment();
+        }
+        return date;
+    }
+
+    private LocalDate parse(String dateString) {
+        if (formatter == null) {
+            return DateCodec.parse(dateString);
+        }
+        try {
+            return LocalDate.parse(dateString, formatter);
+        } catch (java.time.format.DateTimeParseException e) {
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,18 @@
 package com.taskmanager;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import java.io.IOException;
-import java.time.LocalDate;
 
 public class Main extends Application {
 
     private static Main instance;
     private Gson gson;
-    private TaskManager taskManager;
+    private DataContext dataContext;
 
     public Main() {
         instance = this;
@@ -26,21 +24,18 @@ public class Main extends Application {
 
     @Override
     public void start(Stage primaryStage) throws IOException {
-        gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
-                .create();
+        gson = Codecs.gson(); // Shared by every store
 
-        taskManager = new TaskManager(gson); // Initialize TaskManager
-        taskManager.updateOverdueTasks(); // Mark delayed tasks
-        taskManager.showDelayedTasksPopup(); // Show popup if there are delayed tasks
+        dataContext = DataContext.start(gson); // Every store loads in the background while the window is built
+        StartupTimer timer = dataContext.getTimer();
+        timer.begin("window");
 
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/taskview.fxml"));
         fxmlLoader.setControllerFactory(c -> {
             try {
                 Object controller = c.getDeclaredConstructor().newInstance();
                 if (controller instanceof TaskViewController) {
-                    ((TaskViewController) controller).setGson(gson);
-                    ((TaskViewController) controller).setTaskManager(taskManager);
+                    ((TaskViewController) controller).setDataContext(dataContext);
                 }
                 return controller;
             } catch (Exception e) {
@@ -53,6 +48,12 @@ public class Main extends Application {
         primaryStage.setTitle("Taskly");
         primaryStage.setScene(scene);
         primaryStage.show();
+        timer.end("window");
+
+        // Overdue tasks are marked at the end of the load
+        TaskManager taskManager = dataContext.getTaskManager();
+        taskManager.whenLoaded().thenRun(taskManager::showDelayedTasksPopup); // Show popup if there are delayed tasks
+        dataContext.whenReady().whenComplete((ignored, error) -> dataContext.reportStartup());
     }
 
     public Gson getGson() {
@@ -60,7 +61,11 @@ public class Main extends Application {
     }
 
     public TaskManager getTaskManager() {
-        return taskManager;
+        return dataContext.getTaskManager();
+    }
+
+    public DataContext getDataContext() {
+        return dataContext;
     }
 
     public static void main(String[] args) {
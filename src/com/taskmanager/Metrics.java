@@ -0,0 +1,222 @@
+package com.taskmanager;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide operational metrics: counters, gauges and latency histograms, looked up by name.
+ * Recording is a few uncontended adds ({@link LongAdder}), so it is cheap enough for the hot paths;
+ * callers keep the counter or histogram they record into in a static field rather than looking it
+ * up each time. {@link #publish(Path, long)} exposes everything through JMX as
+ * {@code com.taskmanager:type=Metrics} and rewrites a snapshot file at a fixed interval.
+ * <p>
+ * Names are dotted, store or area first: {@code tasks.load}, {@code save.reminders}, {@code search}.
+ */
+public class Metrics implements MetricsMXBean {
+    public static final String OBJECT_NAME = "com.taskmanager:type=Metrics";
+
+    private static final Metrics instance = new Metrics();
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private ScheduledExecutorService snapshots; // null until publish() is called
+
+    /**
+     * Latency distribution in power-of-two buckets of nanoseconds. Percentiles are reported as the
+     * upper bound of their bucket, so they are accurate to within a factor of two.
+     */
+    public static class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS]; // bucket i holds durations below 2^i ns
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        // Records the time elapsed since start, a value of System.nanoTime()
+        public void recordSince(long start) {
+            record(System.nanoTime() - start);
+        }
+
+        public LatencySummary summarize() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long max = maxNanos.get();
+            // A bucket's upper bound can lie above the largest value actually recorded
+            return new LatencySummary(total, total == 0 ? 0 : totalNanos.sum() / total,
+                    Math.min(max, percentile(counts, total, 0.50)), Math.min(max, percentile(counts, total, 0.99)), max);
+        }
+
+        private static long percentile(long[] counts, long total, double fraction) {
+            long rank = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return i == 0 ? 0 : 1L << Math.min(i, 62);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * A point-in-time view of a {@link Histogram}, in microseconds. Exposed through JMX as composite data.
+     */
+    public static class LatencySummary {
+        private final long count;
+        private final long meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        LatencySummary(long count, long meanNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() { return count; }
+
+        public double getMeanMicros() { return meanNanos / 1000.0; }
+
+        public double getP50Micros() { return p50Nanos / 1000.0; }
+
+        public double getP99Micros() { return p99Nanos / 1000.0; }
+
+        public double getMaxMicros() { return maxNanos / 1000.0; }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.1fus p50<=%.1fus p99<=%.1fus max=%.1fus",
+                    count, getMeanMicros(), getP50Micros(), getP99Micros(), getMaxMicros());
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return instance;
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    /**
+     * Registers a value that is read whenever the metrics are published, e.g. the size of a store.
+     * Registering a name again replaces the earlier gauge. The supplier must not block.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    @Override
+    public Map<String, LatencySummary> getLatencies() {
+        Map<String, LatencySummary> values = new TreeMap<>();
+        histograms.forEach((name, histogram) -> values.put(name, histogram.summarize()));
+        return values;
+    }
+
+    /**
+     * @return Every metric, one per line, for logs and the snapshot file.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("# Taskly metrics at ").append(LocalDateTime.now()).append('\n');
+        getCounters().forEach((name, value) -> report.append("counter ").append(name).append(' ').append(value).append('\n'));
+        getGauges().forEach((name, value) -> report.append("gauge   ").append(name).append(' ').append(value).append('\n'));
+        getLatencies().forEach((name, value) -> report.append("latency ").append(name).append(' ').append(value).append('\n'));
+        return report.toString();
+    }
+
+    /**
+     * Registers the JMX MBean and starts rewriting the snapshot file. Later calls do nothing.
+     *
+     * @param snapshotFile    File that is replaced with {@link #report()} at every interval.
+     * @param intervalSeconds Time between snapshots; 0 or less publishes through JMX only.
+     */
+    public synchronized void publish(Path snapshotFile, long intervalSeconds) {
+        if (snapshots != null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered by an earlier publish() in this JVM
+        } catch (JMException e) {
+            System.err.println("Could not register metrics with JMX: " + e.getMessage());
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "taskly-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (intervalSeconds > 0) {
+            snapshots.scheduleWithFixedDelay(() -> writeSnapshot(snapshotFile), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void writeSnapshot(Path file) {
+        try {
+            byte[] report = report().getBytes(StandardCharsets.UTF_8);
+            PersistenceService.writeAtomically(file, out -> out.write(report));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not write metrics snapshot " + file + ": " + e.getMessage());
+        }
+    }
+}
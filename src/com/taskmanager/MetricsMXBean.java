@@ -0,0 +1,15 @@
+package com.taskmanager;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link Metrics}, registered as {@value Metrics#OBJECT_NAME}. Every attribute is a
+ * snapshot taken when it is read.
+ */
+public interface MetricsMXBean {
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getGauges();
+
+    Map<String, Metrics.LatencySummary> getLatencies();
+}
@@ -0,0 +1,48 @@
+package com.taskmanager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link TaskManager#updateOverdueTasks()} at every local midnight, the only moment a task
+ * can become overdue without being edited. The sweep after loading is done by TaskManager itself.
+ * The tasks it marks reach the window through TaskManager's task and statistics listeners, like
+ * any other edit.
+ */
+public class OverdueMonitor {
+    private final TaskManager taskManager;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "taskly-overdue");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OverdueMonitor(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    // Arms the first midnight sweep
+    public void start() {
+        scheduleNextMidnight();
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void scheduleNextMidnight() {
+        LocalDateTime midnight = LocalDate.now().plusDays(1).atStartOfDay();
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), midnight).toMillis());
+        timer.schedule(() -> {
+            try {
+                taskManager.updateOverdueTasks();
+            } finally {
+                scheduleNextMidnight(); // Re-computed each day, so clock and DST changes do not pile up
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+}
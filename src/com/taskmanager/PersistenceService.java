@@ -0,0 +1,261 @@
+package com.taskmanager;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves the JSON stores' disk I/O off the calling (JavaFX) thread.
+ * Managers call {@link #schedule(Object, String, Runnable)} whenever their data changes; the store is
+ * marked dirty and a single writer thread runs the store's write action once the burst of changes
+ * has settled, so several saves in a row end up as one write per store. Write actions are expected to
+ * take their own consistent copy of the data and to use {@link #writeAtomically(Path, Output)}.
+ * <p>
+ * The service also remembers how each file looked when this program last wrote it (or a store
+ * last read it, see {@link #remember}), so changes made by other programs can be told apart from
+ * its own; see {@link #isUnchanged(Path)} and {@link DataWatcher}.
+ */
+public class PersistenceService {
+
+    /**
+     * Callback that streams a store's content to the temporary file.
+     */
+    public interface Output {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final long COALESCE_DELAY_MILLIS = 200;
+    private static final PersistenceService instance = new PersistenceService();
+    private static final LongAdder BYTES_WRITTEN = Metrics.getInstance().counter("persistence.bytesWritten");
+
+    private static final Map<Path, Object> knownFiles = new ConcurrentHashMap<>(); // file -> fingerprint as last read or written
+
+    private final Map<Store, Runnable> dirtyStores = new LinkedHashMap<>();
+    private final Thread writerThread;
+    private long firstDirtyAt; // start of the current coalescing window
+    private boolean flushRequested;
+    private boolean writing;
+
+    private PersistenceService() {
+        writerThread = new Thread(this::runWriter, "taskly-writer");
+        writerThread.setDaemon(true); // flush() on exit makes sure nothing is lost
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "taskly-flush"));
+    }
+
+    public static PersistenceService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Marks a store dirty. Scheduling a store that is already dirty replaces its pending action.
+     *
+     * @param owner The manager that owns the store. Two managers with a store of the same name, e.g.
+     *              the CLI's and a test's, are written separately.
+     * @param store Name of the store, e.g. "tasks", also used for its metrics.
+     * @param write Action that writes the store's current state. Runs on the writer thread.
+     */
+    public synchronized void schedule(Object owner, String store, Runnable write) {
+        if (dirtyStores.isEmpty()) {
+            firstDirtyAt = System.currentTimeMillis();
+            notifyAll();
+        }
+        dirtyStores.put(new Store(owner, store), write);
+    }
+
+    /**
+     * Blocks until every dirty store has been written. Called on application exit.
+     */
+    public synchronized void flush() {
+        if (Thread.currentThread() == writerThread) {
+            return;
+        }
+        flushRequested = true;
+        notifyAll();
+        while (!dirtyStores.isEmpty() || writing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        flushRequested = false;
+    }
+
+    /**
+     * Writes a file through a temporary sibling and an atomic rename, so readers and crashes never
+     * observe a half-written file. The temporary file is forced to disk before the rename, and the
+     * directory after it where the platform allows, so a power loss leaves either the old or the new
+     * content, never an empty file.
+     *
+     * @param target The file to replace.
+     * @param output Writes the new content.
+     * @throws IOException if the file cannot be written or moved into place.
+     */
+    public static void writeAtomically(Path target, Output output) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             CountingOutputStream out = new CountingOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024))) {
+            output.writeTo(out);
+            out.flush();
+            channel.force(true);
+            BYTES_WRITTEN.add(out.count);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+        remember(target, fingerprint(target));
+    }
+
+    // Makes the rename durable. Not every platform can open a directory (Windows cannot); there the
+    // file system orders the rename after the data on its own.
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported here
+        }
+    }
+
+    /**
+     * Identifies the current content of a file without reading it: its file key (the inode, which
+     * every atomic replacement changes), size and modification time.
+     *
+     * @return The fingerprint, or {@code null} if the file does not exist.
+     */
+    static Object fingerprint(Path file) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return Arrays.asList(attributes.fileKey(), attributes.size(), attributes.lastModifiedTime());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Records that this program has seen the file as it was when the fingerprint was taken. Readers
+     * take the fingerprint before reading, so a change made while they read is not missed.
+     */
+    static void remember(Path file, Object fingerprint) {
+        if (fingerprint == null) {
+            knownFiles.remove(file.toAbsolutePath());
+        } else {
+            knownFiles.put(file.toAbsolutePath(), fingerprint);
+        }
+    }
+
+    /**
+     * @return Whether the file is still as this program last read or wrote it. A file it never saw
+     *         counts as unchanged as long as it does not exist.
+     */
+    static boolean isUnchanged(Path file) throws IOException {
+        return Objects.equals(knownFiles.get(file.toAbsolutePath()), fingerprint(file));
+    }
+
+    private void runWriter() {
+        while (true) {
+            Map<Store, Runnable> writes;
+            synchronized (this) {
+                try {
+                    while (dirtyStores.isEmpty()) {
+                        wait();
+                    }
+                    // Let the rest of the burst arrive, unless someone is waiting on a flush
+                    long remaining;
+                    while (!flushRequested
+                            && (remaining = firstDirtyAt + COALESCE_DELAY_MILLIS - System.currentTimeMillis()) > 0) {
+                        wait(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                writes = new LinkedHashMap<>(dirtyStores);
+                dirtyStores.clear();
+                writing = true;
+            }
+            for (Map.Entry<Store, Runnable> write : writes.entrySet()) {
+                long start = System.nanoTime();
+                try {
+                    write.getValue().run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+                Metrics.getInstance().histogram("save." + write.getKey().name).recordSince(start);
+            }
+            synchronized (this) {
+                writing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    // A dirty store: the owning manager, compared by identity, and the store's name
+    private static final class Store {
+        final Object owner;
+        final String name;
+
+        Store(Object owner, String name) {
+            this.owner = owner;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Store)) {
+                return false;
+            }
+            Store other = (Store) o;
+            return owner == other.owner && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(owner) + name.hashCode();
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
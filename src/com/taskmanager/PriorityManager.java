@@ -1,14 +1,12 @@
 package com.taskmanager;
 
-import java.io.*;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 public class PriorityManager {
-    private static final String FILE_PATH = "medialab/priorities.json";
-    private static final Gson gson = new Gson();
+    private static final SymbolTable symbols = new SymbolTable();
+    private final StorageBackend storage = StorageBackend.configured(Codecs.gson());
     private List<String> priorities = new ArrayList<>();
 
     public PriorityManager() {
@@ -16,59 +14,65 @@ public class PriorityManager {
         if (!priorities.contains("Default")) {
             priorities.add("Default"); // Ensure "Default" always exists
         }
+        priorities.forEach(symbols::intern);
+    }
+
+    // Ids of every priority name in use, shared by all tasks; see Task.getPriority()
+    public static SymbolTable symbols() {
+        return symbols;
     }
 
     public List<String> getPriorities() {
         return priorities;
     }
 
-    public void addPriority(String priority) {
+    public synchronized void addPriority(String priority) {
         if (!priorities.contains(priority)) {
+            symbols.intern(priority);
             priorities.add(priority);
             savePriorities();
         }
     }
 
-    public void renamePriority(String oldName, String newName, TaskManager taskManager) {
+    public synchronized void renamePriority(String oldName, String newName, TaskManager taskManager) {
         if (!oldName.equals("Default") && priorities.contains(oldName) && !priorities.contains(newName)) {
             priorities.remove(oldName);
             priorities.add(newName);
 
-            // Update priority in tasks
-            for (Task task : taskManager.getTasks()) {
-                if (task.getPriority().equals(oldName)) {
-                    task.setPriority(newName);
-                }
-            }
-            taskManager.saveTasks();
+            // Tasks refer to the priority by id, so usually only the symbol changes
+            taskManager.renamePriority(oldName, newName);
             savePriorities();
         }
     }
 
-    public void deletePriority(String priority, TaskManager taskManager) {
+    public synchronized void deletePriority(String priority, TaskManager taskManager) {
         if (!priority.equals("Default") && priorities.remove(priority)) {
             // Assign "Default" priority to affected tasks
-            for (Task task : taskManager.getTasks()) {
-                if (task.getPriority().equals(priority)) {
-                    task.setPriority("Default");
-                }
-            }
+            taskManager.renamePriority(priority, "Default");
             savePriorities();
-            taskManager.saveTasks();
         }
     }
 
     void savePriorities() {
-        try (Writer writer = new FileWriter(FILE_PATH)) {
-            gson.toJson(priorities, writer);
+        PersistenceService.getInstance().schedule(this, "priorities", this::writePriorities);
+    }
+
+    // Runs on the persistence writer thread
+    private void writePriorities() {
+        List<String> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(priorities);
+        }
+        try {
+            storage.writeNames("priorities", snapshot);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     private List<String> loadPriorities() {
-        try (Reader reader = new FileReader(FILE_PATH)) {
-            return gson.fromJson(reader, new TypeToken<List<String>>() {}.getType());
+        try {
+            return storage.loadNames("priorities");
         } catch (IOException e) {
             return new ArrayList<>();
         }
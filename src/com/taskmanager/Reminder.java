@@ -4,7 +4,7 @@ import java.time.LocalDate;
 import java.util.Objects;
 
 public class Reminder {
-    private Task task;
+    private volatile Task task; // the task as of its last change, see ReminderManager; reminders.json stores its id
     private LocalDate reminderDate;
     private boolean isShown; // ADDED: isShown field
 
@@ -18,6 +18,11 @@ public class Reminder {
         return task;
     }
 
+    // Takes the task's new fields after an edit; the id stays the same
+    void setTask(Task task) {
+        this.task = task;
+    }
+
     public LocalDate getReminderDate() {
         return reminderDate;
     }
@@ -46,12 +51,12 @@ public class Reminder {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Reminder reminder = (Reminder) o;
-        return Objects.equals(task, reminder.task) && // Compare based on associated Task
+        return task.getId() == reminder.task.getId() && // Same task, not a field-by-field comparison
                 Objects.equals(reminderDate, reminder.reminderDate); // and reminderDate
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(task, reminderDate); // HashCode based on Task and reminderDate
+        return 31 * Long.hashCode(task.getId()) + Objects.hashCode(reminderDate); // Consistent with equals()
     }
 }
\ No newline at end of file
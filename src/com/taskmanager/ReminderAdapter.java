@@ -0,0 +1,82 @@
+package com.taskmanager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * JSON form of a {@link Reminder} in reminders.json, used through {@code @JsonAdapter} on
+ * {@link ReminderManager.StoredReminder}: {@code taskId, reminderDate, isShown}, in the shape the
+ * reflective adapter used to produce. The older {@code taskIndex} and embedded {@code task} fields
+ * are still read so those files can be migrated; unknown fields are skipped, and an unreadable date
+ * reads as null, which drops the reminder.
+ */
+public class ReminderAdapter extends TypeAdapter<ReminderManager.StoredReminder> {
+    private static final TaskAdapter TASK_ADAPTER = new TaskAdapter();
+
+    @Override
+    public void write(JsonWriter out, ReminderManager.StoredReminder reminder) throws IOException {
+        if (reminder == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (reminder.taskId != null) {
+            out.name("taskId").value(reminder.taskId);
+        }
+        if (reminder.taskIndex != null) {
+            out.name("taskIndex").value(reminder.taskIndex);
+        }
+        if (reminder.task != null) {
+            out.name("task");
+            TASK_ADAPTER.write(out, reminder.task);
+        }
+        if (reminder.reminderDate != null) {
+            out.name("reminderDate").value(DateCodec.format(reminder.reminderDate));
+        }
+        out.name("isShown").value(reminder.isShown);
+        out.endObject();
+    }
+
+    @Override
+    public ReminderManager.StoredReminder read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ReminderManager.StoredReminder reminder = new ReminderManager.StoredReminder();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "taskId":
+                    reminder.taskId = in.nextLong();
+                    break;
+                case "taskIndex":
+                    reminder.taskIndex = in.nextInt();
+                    break;
+                case "task":
+                    reminder.task = TASK_ADAPTER.read(in);
+                    break;
+                case "reminderDate":
+                    reminder.reminderDate = DateCodec.parse(in.nextString());
+                    break;
+                case "isShown":
+                    reminder.isShown = in.nextBoolean();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return reminder;
+    }
+}
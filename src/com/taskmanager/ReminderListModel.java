@@ -0,0 +1,143 @@
+package com.taskmanager;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The reminder list shown by the UI, kept in step with {@link ReminderManager} the way
+ * {@link TaskListModel} follows {@link TaskManager}. It also listens to the tasks, so renaming a
+ * task refreshes the cells of its reminders and deleting one hides them. Each view gets an
+ * increasing sequence number and the items stay in that order, so a removed reminder's view is
+ * found by binary search. {@link #getItems()} must be used on the FX thread.
+ */
+public class ReminderListModel implements StoreListener<Reminder> {
+    private final ReminderManager reminderManager;
+    private final ObservableList<ReminderViewModel> items = FXCollections.observableArrayList();
+    private final Map<Reminder, ReminderViewModel> byReminder = new HashMap<>();
+    private final Map<Long, List<ReminderViewModel>> byTask = new HashMap<>(); // task id -> its reminders' views
+    private final Map<ReminderViewModel, Long> sequence = new HashMap<>(); // ascending along items
+    private long nextSequence;
+
+    public ReminderListModel(ReminderManager reminderManager, TaskManager taskManager) {
+        this.reminderManager = reminderManager;
+        reminderManager.addListener(this);
+        taskManager.addListener(new StoreListener<Task>() {
+            @Override
+            public void added(Task task) {
+            }
+
+            @Override
+            public void updated(Task task) {
+                Platform.runLater(() -> {
+                    for (ReminderViewModel view : byTask.getOrDefault(task.getId(), List.of())) {
+                        view.refresh();
+                    }
+                });
+            }
+
+            @Override
+            public void removed(Task task) {
+                Platform.runLater(() -> {
+                    for (ReminderViewModel view : new ArrayList<>(byTask.getOrDefault(task.getId(), List.of()))) {
+                        forget(view.getReminder());
+                    }
+                });
+            }
+
+            @Override
+            public void reloaded() {
+            }
+        });
+    }
+
+    public ObservableList<ReminderViewModel> getItems() {
+        return items;
+    }
+
+    public void reload() {
+        List<Reminder> reminders = reminderManager.getReminders();
+        List<ReminderViewModel> views = new ArrayList<>(reminders.size());
+        byReminder.clear();
+        byTask.clear();
+        sequence.clear();
+        for (Reminder reminder : reminders) {
+            views.add(track(reminder));
+        }
+        items.setAll(views);
+    }
+
+    @Override
+    public void added(Reminder reminder) {
+        Platform.runLater(() -> show(reminder));
+    }
+
+    @Override
+    public void updated(Reminder reminder) {
+        Platform.runLater(() -> {
+            ReminderViewModel view = byReminder.get(reminder);
+            if (view != null) {
+                view.refresh();
+            }
+        });
+    }
+
+    @Override
+    public void removed(Reminder reminder) {
+        Platform.runLater(() -> forget(reminder));
+    }
+
+    @Override
+    public void reloaded() {
+        Platform.runLater(this::reload);
+    }
+
+    // On the FX thread
+    void show(Reminder reminder) {
+        if (!byReminder.containsKey(reminder)) {
+            items.add(track(reminder)); // Its sequence number is the highest
+        }
+    }
+
+    private ReminderViewModel track(Reminder reminder) {
+        ReminderViewModel view = new ReminderViewModel(reminder);
+        byReminder.put(reminder, view);
+        sequence.put(view, nextSequence++);
+        byTask.computeIfAbsent(reminder.getTask().getId(), k -> new ArrayList<>()).add(view);
+        return view;
+    }
+
+    // On the FX thread
+    void forget(Reminder reminder) {
+        ReminderViewModel view = byReminder.remove(reminder);
+        if (view == null) {
+            return;
+        }
+        List<ReminderViewModel> forTask = byTask.get(reminder.getTask().getId());
+        if (forTask != null && forTask.remove(view) && forTask.isEmpty()) {
+            byTask.remove(reminder.getTask().getId());
+        }
+        items.remove(position(sequence.get(view)));
+        sequence.remove(view);
+    }
+
+    // Binary search of items by sequence number; the view is known to be there
+    private int position(long key) {
+        int low = 0;
+        int high = items.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sequence.get(items.get(mid)) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
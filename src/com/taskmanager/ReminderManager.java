@@ -1,93 +1,463 @@
 package com.taskmanager;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.io.*;
+import com.google.gson.annotations.JsonAdapter;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 public class ReminderManager {
-    private static final String FILE_PATH = "medialab/reminders.json";
-    private List<Reminder> reminders = new ArrayList<>();
-    private final Gson gson;
+    private static final Metrics.Histogram LOAD_TIME = Metrics.getInstance().histogram("reminders.load");
+    private static final LongAdder OUTSIDE_CHANGES = Metrics.getInstance().counter("reminders.outsideChanges");
+    // The newest manager, as for tasks.count; it holds its TaskManager, so it must not be kept alive either
+    private static volatile WeakReference<ReminderManager> counted = new WeakReference<>(null);
 
-    public ReminderManager(Gson gson) {
-        this.gson = gson;
-        this.reminders = loadReminders();
+    static {
+        Metrics.getInstance().gauge("reminders.count", () -> {
+            ReminderManager manager = counted.get();
+            return manager == null ? 0 : manager.reminders.size();
+        });
+    }
+
+    private volatile List<Reminder> reminders = new ArrayList<>();
+    private final Map<Long, List<Reminder>> remindersByTask = new HashMap<>(); // task id -> reminders
+    private final StorageBackend storage;
+    private final TaskManager taskManager;
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+    private ReminderScheduler scheduler; // null until startScheduler() is called
+    private final List<StoreListener<Reminder>> listeners = new CopyOnWriteArrayList<>();
+    private Map<String, Boolean> storedState = new HashMap<>(); // key() -> isShown, as last read or written
+    private boolean unsaved; // a change was made since the last write
+
+    // On-disk form of a reminder: the task is referenced by its id.
+    // "task" (an embedded copy) and "taskIndex" (a list position) are only found in older files.
+    @JsonAdapter(ReminderAdapter.class)
+    static class StoredReminder {
+        Long taskId;
+        Integer taskIndex;
+        Task task;
+        LocalDate reminderDate;
+        boolean isShown;
+    }
+
+    public ReminderManager(Gson gson, TaskManager taskManager) {
+        this.storage = StorageBackend.configured(gson);
+        this.taskManager = taskManager;
+        counted = new WeakReference<>(this);
+        taskManager.addListener(new StoreListener<Task>() {
+            @Override
+            public void added(Task task) {
+            }
+
+            @Override
+            public void updated(Task task) {
+                follow(task);
+            }
+
+            @Override
+            public void removed(Task task) {
+            }
+
+            @Override
+            public void reloaded() {
+            }
+        });
+        long start = System.nanoTime();
+        List<StoredReminder> stored = loadReminders();
+        LOAD_TIME.recordSince(start);
+        // References can only be resolved once the tasks are in memory
+        taskManager.whenLoaded().thenRun(() -> resolve(stored));
+    }
+
+    // Completes once the stored reminders have been matched to their tasks
+    public CompletableFuture<Void> whenLoaded() {
+        return loaded;
     }
 
-    private List<Reminder> loadReminders() {
-        try (Reader reader = new FileReader(FILE_PATH)) {
-            List<Reminder> loadedReminders = gson.fromJson(reader, new TypeToken<List<Reminder>>() {}.getType());
-            return loadedReminders == null ? new ArrayList<>() : loadedReminders;
+    private List<StoredReminder> loadReminders() {
+        try {
+            return storage.loadReminders();
         } catch (IOException e) {
             return new ArrayList<>();
         }
     }
 
+    private void resolve(List<StoredReminder> stored) {
+        List<Long> ids = new ArrayList<>();
+        boolean oldFormat = false;
+        for (StoredReminder entry : stored) {
+            if (entry.taskId != null) {
+                ids.add(entry.taskId);
+            } else {
+                oldFormat = true;
+            }
+        }
+        Map<Long, Task> byId = taskManager.getTasksById(ids); // Only the reminded tasks need to be read
+        List<Task> tasks = oldFormat ? taskManager.getTasks() : List.of();
+        Map<Task, List<Task>> tasksByContent = null; // Only built for the one-time migration
+        List<Reminder> resolved = new ArrayList<>(stored.size());
+        boolean migrated = false;
+        for (StoredReminder entry : stored) {
+            Task task = null;
+            if (entry.taskId != null) {
+                task = byId.get(entry.taskId);
+            } else if (entry.taskIndex != null) {
+                if (entry.taskIndex >= 0 && entry.taskIndex < tasks.size()) {
+                    task = tasks.get(entry.taskIndex);
+                }
+                migrated = true;
+            } else if (entry.task != null) {
+                // Old format with an embedded copy of the task: find the task it was copied from
+                if (tasksByContent == null) {
+                    tasksByContent = new HashMap<>();
+                    for (Task candidate : tasks) {
+                        tasksByContent.computeIfAbsent(candidate, k -> new ArrayList<>()).add(candidate);
+                    }
+                }
+                task = findOriginal(entry.task, tasksByContent, tasks);
+                migrated = true;
+            }
+            if (task == null || entry.reminderDate == null) {
+                System.out.println("Dropping reminder on " + entry.reminderDate + ": its task no longer exists.");
+                migrated = true;
+                continue;
+            }
+            Reminder reminder = new Reminder(task, entry.reminderDate);
+            reminder.setShown(entry.isShown);
+            resolved.add(reminder);
+        }
+        synchronized (this) {
+            reminders = resolved;
+            remindersByTask.clear();
+            for (Reminder reminder : resolved) {
+                remindersByTask.computeIfAbsent(reminder.getTask().getId(), k -> new ArrayList<>()).add(reminder);
+            }
+            storedState = stateOf(stored);
+            if (scheduler != null) {
+                scheduler.addAll(unshown(resolved));
+            }
+            notifyListeners(StoreListener::reloaded);
+        }
+        loaded.complete(null);
+        if (migrated) {
+            saveReminders(); // Rewrite the file once in the reference format
+        }
+    }
 
+    // TaskManager hands out copies, so the reminders of an edited task take the new one
+    private synchronized void follow(Task task) {
+        for (Reminder reminder : remindersByTask.getOrDefault(task.getId(), List.of())) {
+            reminder.setTask(task);
+        }
+    }
 
+    // Embedded copies go stale as soon as the task is edited, so fall back to a title match
+    private static Task findOriginal(Task copy, Map<Task, List<Task>> tasksByContent, List<Task> tasks) {
+        List<Task> exact = tasksByContent.get(copy);
+        if (exact != null && !exact.isEmpty()) {
+            return exact.remove(0);
+        }
+        for (Task task : tasks) {
+            if (task.getTitle().equalsIgnoreCase(copy.getTitle())) {
+                return task;
+            }
+        }
+        return null;
+    }
 
-    public void addReminder(Task task, LocalDate reminderDate) {
+    public synchronized void addReminder(Task task, LocalDate reminderDate) {
         if (task.getStatus() == Task.Status.COMPLETED) {
             System.out.println("Cannot add a reminder for a completed task.");
             return;
         }
-        for (Reminder r : reminders) {
-            if (r.getTask().equals(task) && r.getReminderDate().equals(reminderDate)) {
+        List<Reminder> existing = remindersByTask.computeIfAbsent(task.getId(), k -> new ArrayList<>());
+        for (Reminder r : existing) {
+            if (r.getReminderDate().equals(reminderDate)) {
                 System.out.println("Reminder already exists for this date.");
                 return;
             }
         }
-        reminders.add(new Reminder(task, reminderDate));
+        Reminder reminder = new Reminder(task, reminderDate);
+        existing.add(reminder);
+        reminders.add(reminder);
+        if (scheduler != null) {
+            scheduler.add(reminder);
+        }
+        notifyListeners(listener -> listener.added(reminder));
         saveReminders();
     }
 
-    public void deleteRemindersForTask(Task task) {
-        System.out.println("deleteRemindersForTask() method in ReminderManager is called for task: " + task.getTitle()); // Already present
-
-        System.out.println("Number of reminders before deletion attempt: " + reminders.size()); // ADD THIS LINE
+    public synchronized void deleteRemindersForTask(Task task) {
+        deleteRemindersForTasks(Set.of(task.getId()));
+    }
 
-        int initialReminderCount = reminders.size(); // Store initial count
+    // Removes the reminders of every task in the set with one pass over all reminders, e.g. for a purge
+    public synchronized void deleteRemindersForTasks(Set<Long> taskIds) {
+        boolean any = false;
+        for (Long taskId : taskIds) {
+            List<Reminder> removed = remindersByTask.remove(taskId);
+            if (removed != null) {
+                any = true;
+                if (scheduler != null) {
+                    removed.forEach(scheduler::remove);
+                }
+                for (Reminder reminder : removed) {
+                    notifyListeners(listener -> listener.removed(reminder));
+                }
+            }
+        }
+        if (any) {
+            reminders.removeIf(reminder -> taskIds.contains(reminder.getTask().getId()));
+        }
+        saveReminders();
+    }
 
-        reminders.removeIf(reminder -> {
-            boolean isEqual = reminder.getTask().equals(task);
-            System.out.println("  Checking reminder for task: " + reminder.getTask().getTitle() +
-                    ", isEquals to task to delete (" + task.getTitle() + "): " + isEqual +
-                    ", Reminder Task hashCode: " + reminder.getTask().hashCode() +
-                    ", Task to Delete hashCode: " + task.hashCode()); // ADD THIS BLOCK
+    public synchronized void deleteReminder(Reminder reminder) {
+        List<Reminder> forTask = remindersByTask.get(reminder.getTask().getId());
+        if (forTask != null && forTask.remove(reminder)) {
+            if (forTask.isEmpty()) {
+                remindersByTask.remove(reminder.getTask().getId());
+            }
+            reminders.remove(reminder);
+            if (scheduler != null) {
+                scheduler.remove(reminder);
+            }
+            notifyListeners(listener -> listener.removed(reminder));
+            saveReminders();
+        }
+    }
 
-            return isEqual;
+    /**
+     * Starts firing reminders as they come due, including any that are already overdue and not
+     * shown yet. Due reminders of tasks that have since been deleted are skipped.
+     *
+     * @param onDue Receives the due reminders on the scheduler thread; call {@link #markShown(List)}
+     *              once they have been shown.
+     */
+    public synchronized void startScheduler(Consumer<List<Reminder>> onDue) {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        scheduler = new ReminderScheduler(due -> {
+            List<Reminder> live = new ArrayList<>(due.size());
+            TaskSnapshot tasks = taskManager.snapshot(); // Runs on the scheduler thread; no need to wait for the task lock
+            for (Reminder reminder : due) {
+                if (tasks.contains(reminder.getTask().getId())) {
+                    live.add(reminder);
+                }
+            }
+            if (!live.isEmpty()) {
+                onDue.accept(live);
+            }
         });
+        scheduler.addAll(unshown(reminders)); // Empty until resolve() has run, which adds them itself
+    }
 
-        int remindersRemovedCount = initialReminderCount - reminders.size(); // Calculate removed count
-        System.out.println("Number of reminders removed: " + remindersRemovedCount); // ADD THIS LINE
-        System.out.println("Number of reminders after deletion attempt: " + reminders.size()); // ADD THIS LINE
+    public synchronized void markShown(List<Reminder> shown) {
+        for (Reminder reminder : shown) {
+            reminder.setShown(true);
+            notifyListeners(listener -> listener.updated(reminder));
+        }
+        saveReminders(); // Persist 'isShown' so they do not pop up again on the next start
+    }
 
-        saveReminders();
+    private static List<Reminder> unshown(List<Reminder> reminders) {
+        List<Reminder> unshown = new ArrayList<>();
+        for (Reminder reminder : reminders) {
+            if (!reminder.isShown()) {
+                unshown.add(reminder);
+            }
+        }
+        return unshown;
     }
 
     public void saveReminders() {
-        try (Writer writer = new FileWriter(FILE_PATH)) {
-            gson.toJson(reminders, writer);
-            System.out.println("Reminders saved successfully.");
+        synchronized (this) {
+            unsaved = true;
+        }
+        PersistenceService.getInstance().schedule(this, "reminders", this::writeReminders);
+    }
+
+    /**
+     * Has the writer thread check whether another program changed the stored reminders and merge
+     * the change in, see {@link DataWatcher}. Changes that were not written yet are written right after.
+     */
+    public void checkForOutsideChanges() {
+        PersistenceService.getInstance().schedule(this, "reminders", this::writeReminders);
+    }
+
+    // Runs on the persistence writer thread
+    private void writeReminders() {
+        if (!loaded.isDone()) {
+            return; // Nothing resolved yet; resolve() saves again if the file needs rewriting
+        }
+        mergeOutsideChanges(); // First, or the write would replace them
+        List<StoredReminder> stored;
+        TaskSnapshot tasks = taskManager.snapshot(); // One lock-free lookup per reminder instead of the task lock
+        synchronized (this) {
+            if (!unsaved) {
+                return; // Only checked for outside changes
+            }
+            unsaved = false;
+            stored = new ArrayList<>(reminders.size());
+            for (Reminder reminder : reminders) {
+                long taskId = reminder.getTask().getId();
+                if (!tasks.contains(taskId)) {
+                    continue; // The task was deleted, e.g. together with its category
+                }
+                StoredReminder entry = new StoredReminder();
+                entry.taskId = taskId;
+                entry.reminderDate = reminder.getReminderDate();
+                entry.isShown = reminder.isShown();
+                stored.add(entry);
+            }
+        }
+        try {
+            storage.writeReminders(stored);
         } catch (IOException e) {
             e.printStackTrace();
+            return;
+        }
+        synchronized (this) {
+            storedState = stateOf(stored);
         }
     }
 
-    public List<Reminder> getRemindersForTask(Task task) {
-        List<Reminder> remindersForTask = new ArrayList<>();
-        for (Reminder reminder : reminders) {
-            if (reminder.getTask().equals(task)) {  // Ensure Reminder has a reference to its Task
-                remindersForTask.add(reminder);
+    // Runs on the writer thread, so no write of the reminders can overlap the read
+    private void mergeOutsideChanges() {
+        List<StoredReminder> stored;
+        try {
+            stored = storage.reloadReminders();
+        } catch (IOException e) {
+            System.out.println("Could not read the reminders changed outside the app: " + e.getMessage());
+            return; // Tried again on the next change or write
+        }
+        if (stored == null) {
+            return;
+        }
+        Map<String, Reminder> incoming = new LinkedHashMap<>();
+        for (StoredReminder entry : stored) {
+            Task task = entry.taskId == null ? null : taskManager.getTaskById(entry.taskId); // Before taking this lock
+            if (task != null && entry.reminderDate != null) {
+                Reminder reminder = new Reminder(task, entry.reminderDate);
+                reminder.setShown(entry.isShown);
+                incoming.put(key(task.getId(), entry.reminderDate), reminder);
             }
         }
-        return remindersForTask;
+        merge(incoming, stateOf(stored));
     }
 
-    public List<Reminder> getReminders() {
-        return reminders;
+    /**
+     * Applies the stored reminders that differ from the ones in memory, one reminder at a time. A
+     * reminder added, removed or shown here since the last write keeps that change, which the next
+     * write stores.
+     *
+     * @param incoming The stored reminders whose task exists, by {@link #key}.
+     * @param state    What is now stored, which becomes the base of the next merge.
+     */
+    private synchronized void merge(Map<String, Reminder> incoming, Map<String, Boolean> state) {
+        Map<String, Boolean> base = storedState;
+        Set<String> kept = new HashSet<>();
+        int merged = 0;
+        for (Reminder reminder : new ArrayList<>(reminders)) {
+            String key = key(reminder.getTask().getId(), reminder.getReminderDate());
+            kept.add(key);
+            Boolean wasShown = base.get(key);
+            if (wasShown == null || wasShown != reminder.isShown()) {
+                continue; // Changed here and not written yet
+            }
+            Reminder theirs = incoming.get(key);
+            if (theirs == null) {
+                List<Reminder> forTask = remindersByTask.get(reminder.getTask().getId());
+                forTask.remove(reminder);
+                if (forTask.isEmpty()) {
+                    remindersByTask.remove(reminder.getTask().getId());
+                }
+                reminders.remove(reminder);
+                if (scheduler != null) {
+                    scheduler.remove(reminder);
+                }
+                notifyListeners(listener -> listener.removed(reminder));
+                merged++;
+            } else if (theirs.isShown() != reminder.isShown()) {
+                reminder.setShown(theirs.isShown());
+                if (scheduler != null) {
+                    if (reminder.isShown()) {
+                        scheduler.remove(reminder);
+                    } else {
+                        scheduler.add(reminder);
+                    }
+                }
+                notifyListeners(listener -> listener.updated(reminder));
+                merged++;
+            }
+        }
+        for (Map.Entry<String, Reminder> entry : incoming.entrySet()) {
+            if (kept.contains(entry.getKey()) || base.containsKey(entry.getKey())) {
+                continue; // Already here, or removed here and not written yet
+            }
+            Reminder reminder = entry.getValue();
+            remindersByTask.computeIfAbsent(reminder.getTask().getId(), k -> new ArrayList<>()).add(reminder);
+            reminders.add(reminder);
+            if (scheduler != null && !reminder.isShown()) {
+                scheduler.add(reminder);
+            }
+            notifyListeners(listener -> listener.added(reminder));
+            merged++;
+        }
+        storedState = state;
+        OUTSIDE_CHANGES.add(merged);
+    }
+
+    private static Map<String, Boolean> stateOf(List<StoredReminder> stored) {
+        Map<String, Boolean> state = new HashMap<>();
+        for (StoredReminder entry : stored) {
+            if (entry.taskId != null && entry.reminderDate != null) {
+                state.put(key(entry.taskId, entry.reminderDate), entry.isShown);
+            }
+        }
+        return state;
+    }
+
+    // A task has at most one reminder per date
+    private static String key(long taskId, LocalDate reminderDate) {
+        return taskId + "@" + reminderDate;
+    }
+
+    public synchronized List<Reminder> getRemindersForTask(Task task) {
+        List<Reminder> remindersForTask = remindersByTask.get(task.getId());
+        return remindersForTask == null ? new ArrayList<>() : new ArrayList<>(remindersForTask);
+    }
+
+    // Copy of all reminders, in the order they were added
+    public synchronized List<Reminder> getReminders() {
+        return new ArrayList<>(reminders);
+    }
+
+    // Receives every later add, update and remove, one reminder at a time
+    public void addListener(StoreListener<Reminder> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(StoreListener<Reminder> listener) {
+        listeners.remove(listener);
+    }
+
+    // Caller holds the lock
+    private void notifyListeners(Consumer<StoreListener<Reminder>> event) {
+        for (StoreListener<Reminder> listener : listeners) {
+            event.accept(listener);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.taskmanager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Fires reminders when they come due. Pending reminders are kept in a map ordered by date, and a
+ * single timer is armed for local midnight of the earliest date, so nothing runs until a reminder
+ * is actually due and reminders further out are never looked at. Adding or removing a reminder is
+ * O(log n) and only re-arms the timer when the earliest date changes.
+ */
+public class ReminderScheduler {
+    private static final Metrics.Histogram CHECK_TIME = Metrics.getInstance().histogram("reminders.check");
+    private static final LongAdder FIRED = Metrics.getInstance().counter("reminders.fired");
+
+    private final NavigableMap<LocalDate, Set<Reminder>> pending = new TreeMap<>();
+    private final Consumer<List<Reminder>> onDue;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "taskly-reminders");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> wakeUp;
+    private LocalDate armedFor; // date the timer is armed for, null when idle
+
+    /**
+     * @param onDue Receives the reminders that came due, on the scheduler's thread. A reminder is
+     *              handed over once and then forgotten by the scheduler.
+     */
+    public ReminderScheduler(Consumer<List<Reminder>> onDue) {
+        this.onDue = onDue;
+    }
+
+    public synchronized void add(Reminder reminder) {
+        pending.computeIfAbsent(reminder.getReminderDate(), k -> new LinkedHashSet<>()).add(reminder);
+        rearm();
+    }
+
+    public synchronized void addAll(Collection<Reminder> reminders) {
+        for (Reminder reminder : reminders) {
+            pending.computeIfAbsent(reminder.getReminderDate(), k -> new LinkedHashSet<>()).add(reminder);
+        }
+        rearm();
+    }
+
+    public synchronized void remove(Reminder reminder) {
+        Set<Reminder> onDate = pending.get(reminder.getReminderDate());
+        if (onDate != null && onDate.remove(reminder) && onDate.isEmpty()) {
+            pending.remove(reminder.getReminderDate());
+            rearm();
+        }
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    // Points the timer at the earliest pending date; caller holds the lock
+    private void rearm() {
+        LocalDate next = pending.isEmpty() ? null : pending.firstKey();
+        if (next == null ? armedFor == null : next.equals(armedFor)) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+            wakeUp = null;
+        }
+        armedFor = next;
+        if (next != null) {
+            long delay = Math.max(0, Duration.between(LocalDateTime.now(), next.atStartOfDay()).toMillis());
+            wakeUp = timer.schedule(this::fire, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void fire() {
+        long start = System.nanoTime();
+        List<Reminder> due = new ArrayList<>();
+        synchronized (this) {
+            wakeUp = null;
+            armedFor = null;
+            // The timer may wake early if the clock moved; then this only re-arms it
+            Map<LocalDate, Set<Reminder>> dueDates = pending.headMap(LocalDate.now(), true);
+            for (Set<Reminder> onDate : dueDates.values()) {
+                due.addAll(onDate);
+            }
+            dueDates.clear();
+            rearm();
+        }
+        CHECK_TIME.recordSince(start);
+        FIRED.add(due.size());
+        if (!due.isEmpty()) {
+            onDue.accept(due);
+        }
+    }
+}
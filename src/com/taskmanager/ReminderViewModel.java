@@ -0,0 +1,59 @@
+package com.taskmanager;
+
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.StringBinding;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+import java.time.LocalDate;
+
+/**
+ * JavaFX view of one {@link Reminder}, see {@link TaskViewModel}. The task title is copied too,
+ * so renaming a task only redraws the cells of its reminders. Use on the FX thread only.
+ */
+public class ReminderViewModel {
+    private final Reminder reminder;
+    private final StringProperty taskTitle = new SimpleStringProperty(this, "taskTitle");
+    private final ObjectProperty<LocalDate> reminderDate = new SimpleObjectProperty<>(this, "reminderDate");
+    private final BooleanProperty shown = new SimpleBooleanProperty(this, "shown");
+    private final StringBinding display;
+
+    public ReminderViewModel(Reminder reminder) {
+        this.reminder = reminder;
+        refresh();
+        // Same text as Reminder.toString()
+        display = Bindings.createStringBinding(
+                () -> "Reminder for Task: " + taskTitle.get() + " on " + reminderDate.get(),
+                taskTitle, reminderDate);
+    }
+
+    // Copies the reminder's and its task's current fields into the properties
+    public void refresh() {
+        taskTitle.set(reminder.getTask().getTitle());
+        reminderDate.set(reminder.getReminderDate());
+        shown.set(reminder.isShown());
+    }
+
+    public Reminder getReminder() {
+        return reminder;
+    }
+
+    public StringProperty taskTitleProperty() { return taskTitle; }
+
+    public ObjectProperty<LocalDate> reminderDateProperty() { return reminderDate; }
+
+    public BooleanProperty shownProperty() { return shown; }
+
+    public StringBinding displayProperty() {
+        return display;
+    }
+
+    @Override
+    public String toString() {
+        return display.get();
+    }
+}
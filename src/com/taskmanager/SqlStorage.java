@@ -0,0 +1,850 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the stores in an embedded SQL database, chosen with {@code -Dtaskly.backend=sql}. The
+ * database is opened through JDBC with {@code -Dtaskly.jdbc.url}, by default an H2 file at
+ * medialab/taskly.mv.db; a SQLite URL such as {@code jdbc:sqlite:medialab/taskly.db} works as well.
+ * The H2 jar is the {@code h2} library of the IntelliJ module; for SQLite, put its JDBC jar on the
+ * classpath instead. Without a driver for the URL, opening fails at once with a message saying so.
+ * <p>
+ * Tasks are rows of an indexed {@code tasks} table, so a write only touches the rows of the tasks
+ * that changed, and a rename or deleted category is a single statement. The words of titles and
+ * descriptions are rows of {@code task_words}, keyed by word, so a search looks words up as index
+ * ranges instead of scanning the text. Managers, the window's included, read a category only to
+ * edit its tasks: filtered counts are {@code COUNT(*)} queries, and filtered reads and searches
+ * fetch just the matching rows, up to a limit, with a {@code WHERE} on the indexed columns.
+ * Reminders, categories and priorities are small and are rewritten as a whole in one transaction.
+ * <p>
+ * The first time a database is opened, the JSON stores under medialab/ are copied into it; the
+ * files are left as they are. One connection is shared per URL and used by one thread at a time.
+ */
+final class SqlStorage implements StorageBackend {
+    static final String DEFAULT_URL = "jdbc:h2:./medialab/taskly";
+    private static final int SCHEMA_VERSION = 2; // 2 added task_words
+    private static final Map<String, SqlStorage> open = new HashMap<>();
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS meta (name VARCHAR(32) PRIMARY KEY, val BIGINT NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS tasks (id BIGINT PRIMARY KEY, title VARCHAR(4096), description VARCHAR(65536),"
+                    + " category VARCHAR(1024), priority VARCHAR(1024), deadline CHAR(10), status VARCHAR(16))",
+            "CREATE INDEX IF NOT EXISTS tasks_category ON tasks (category)",
+            "CREATE INDEX IF NOT EXISTS tasks_priority ON tasks (priority)",
+            "CREATE INDEX IF NOT EXISTS tasks_status ON tasks (status)",
+            "CREATE INDEX IF NOT EXISTS tasks_deadline ON tasks (deadline)",
+            "CREATE TABLE IF NOT EXISTS task_words (word VARCHAR(255) NOT NULL, task_id BIGINT NOT NULL,"
+                    + " flags INT NOT NULL, PRIMARY KEY (word, task_id))",
+            "CREATE INDEX IF NOT EXISTS task_words_task ON task_words (task_id)",
+            "CREATE TABLE IF NOT EXISTS reminders (position INT PRIMARY KEY, task_id BIGINT NOT NULL,"
+                    + " reminder_date CHAR(10) NOT NULL, shown BOOLEAN NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS reminders_task ON reminders (task_id)",
+            "CREATE TABLE IF NOT EXISTS categories (position INT PRIMARY KEY, name VARCHAR(1024) NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS categories_name ON categories (name)",
+            "CREATE TABLE IF NOT EXISTS priorities (position INT PRIMARY KEY, name VARCHAR(1024) NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS priorities_name ON priorities (name)",
+    };
+    private static final int ID_BATCH_SIZE = 500; // ids per IN list
+    private static final String TASK_COLUMNS = "id, title, description, category, priority, deadline, status";
+    // Deadlines are ISO dates, so comparing them as strings orders them by day
+    private static final String OPEN = "status IS NULL OR status NOT IN ('COMPLETED', 'DELAYED')";
+    private static final String INSERT_WORD = "INSERT INTO task_words (word, task_id, flags) VALUES (?, ?, ?)";
+    private static final int MAX_WORD = 255; // longer words are stored, and looked up, cut to this length
+    // A term's score for one word row, as TextIndex scores it; the parameter is the term
+    private static final String WORD_SCORE = "CASE WHEN word = ?"
+            + " THEN (CASE WHEN flags >= " + TextIndex.IN_TITLE + " THEN " + TextIndex.EXACT_TITLE + " ELSE " + TextIndex.EXACT_DESCRIPTION + " END)"
+            + " ELSE (CASE WHEN flags >= " + TextIndex.IN_TITLE + " THEN " + TextIndex.PREFIX_TITLE + " ELSE " + TextIndex.PREFIX_DESCRIPTION + " END) END";
+
+    private final String url;
+    private final Connection connection;
+
+    private SqlStorage(String url, Gson gson) {
+        this.url = url;
+        try {
+            DriverManager.getDriver(url);
+        } catch (SQLException e) {
+            throw new IllegalStateException("No JDBC driver for " + url + ": put the H2 or SQLite JDBC jar on the"
+                    + " classpath, or start without -Dtaskly.backend=sql", e);
+        }
+        try {
+            connection = DriverManager.getConnection(url);
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+            }
+            connection.commit();
+            long version = meta("version");
+            if (version < 0) {
+                migrate(new JsonStorage(gson));
+            } else if (version < SCHEMA_VERSION) {
+                indexWords();
+            }
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Cannot open the task database " + url, e);
+        }
+    }
+
+    // One instance per URL, since the embedded databases allow a single connection
+    static synchronized SqlStorage open(String url, Gson gson) {
+        return open.computeIfAbsent(url, key -> new SqlStorage(key, gson));
+    }
+
+    @Override
+    public TaskStore openTasks(boolean journaled) {
+        return new Tasks();
+    }
+
+    // Copies every JSON store, in one transaction that also records the schema version
+    private synchronized void migrate(JsonStorage json) throws SQLException, IOException {
+        TaskStore.Loaded tasks = json.openTasks(true).load(batch -> {}, true);
+        List<ReminderManager.StoredReminder> reminders = new ArrayList<>();
+        for (ReminderManager.StoredReminder reminder : json.loadReminders()) {
+            if (reminder.taskId != null && reminder.reminderDate != null) {
+                reminders.add(reminder);
+            } else {
+                System.out.println("Not copying a reminder on " + reminder.reminderDate + " written before tasks had ids");
+            }
+        }
+        try {
+            insertTasks(tasks.getTasks());
+            replaceReminders(reminders);
+            replaceNames("categories", json.loadNames("categories"));
+            replaceNames("priorities", json.loadNames("priorities"));
+            setMeta("nextId", tasks.getNextId());
+            setMeta("version", SCHEMA_VERSION);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+        System.out.println("Copied " + tasks.getTasks().size() + " tasks and " + reminders.size()
+                + " reminders from medialab/ into " + url);
+    }
+
+    // Fills task_words for a database written before it existed
+    private synchronized void indexWords() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(INSERT_WORD)) {
+            statement.executeUpdate("DELETE FROM task_words");
+            statement.setFetchSize(TaskStreamLoader.DEFAULT_BATCH_SIZE);
+            int pending = 0;
+            try (ResultSet rows = statement.executeQuery("SELECT id, title, description FROM tasks")) {
+                while (rows.next()) {
+                    addWords(insert, rows.getLong(1), rows.getString(2), rows.getString(3));
+                    if (++pending == TaskStreamLoader.DEFAULT_BATCH_SIZE) {
+                        insert.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            insert.executeBatch();
+            setMeta("version", SCHEMA_VERSION);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+        System.out.println("Indexed the words of the tasks in " + url);
+    }
+
+    @Override
+    public synchronized List<ReminderManager.StoredReminder> loadReminders() throws IOException {
+        List<ReminderManager.StoredReminder> reminders = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT task_id, reminder_date, shown FROM reminders ORDER BY position")) {
+            while (rows.next()) {
+                ReminderManager.StoredReminder reminder = new ReminderManager.StoredReminder();
+                reminder.taskId = rows.getLong(1);
+                reminder.reminderDate = DateCodec.parse(rows.getString(2));
+                reminder.isShown = rows.getBoolean(3);
+                reminders.add(reminder);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+        System.out.println("Reminders loaded from " + url + " (" + reminders.size() + " reminders)");
+        return reminders;
+    }
+
+    @Override
+    public synchronized void writeReminders(List<ReminderManager.StoredReminder> reminders) throws IOException {
+        try {
+            replaceReminders(reminders);
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    @Override
+    public synchronized List<String> loadNames(String store) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT name FROM " + table(store) + " ORDER BY position")) {
+            while (rows.next()) {
+                names.add(rows.getString(1));
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+        return names;
+    }
+
+    @Override
+    public synchronized void writeNames(String store, List<String> names) throws IOException {
+        try {
+            replaceNames(store, names);
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback(e);
+        }
+    }
+
+    // Guards against building SQL from anything but the two known stores
+    private static String table(String store) {
+        if (!store.equals("categories") && !store.equals("priorities")) {
+            throw new IllegalArgumentException("Unknown store " + store);
+        }
+        return store;
+    }
+
+    private void replaceReminders(List<ReminderManager.StoredReminder> reminders) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO reminders (position, task_id, reminder_date, shown) VALUES (?, ?, ?, ?)")) {
+            statement.executeUpdate("DELETE FROM reminders");
+            int position = 0;
+            for (ReminderManager.StoredReminder reminder : reminders) {
+                insert.setInt(1, position++);
+                insert.setLong(2, reminder.taskId);
+                insert.setString(3, DateCodec.format(reminder.reminderDate));
+                insert.setBoolean(4, reminder.isShown);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void replaceNames(String store, List<String> names) throws SQLException {
+        String table = table(store);
+        try (Statement statement = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table + " (position, name) VALUES (?, ?)")) {
+            statement.executeUpdate("DELETE FROM " + table);
+            int position = 0;
+            for (String name : names) {
+                insert.setInt(1, position++);
+                insert.setString(2, name);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    // Inserts the rows of the tasks and of their words
+    private void insertTasks(Iterable<Task> tasks) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO tasks (" + TASK_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement insertWords = connection.prepareStatement(INSERT_WORD)) {
+            int pending = 0;
+            for (Task task : tasks) {
+                insert.setLong(1, task.getId());
+                insert.setString(2, task.getTitle());
+                insert.setString(3, task.getDescription());
+                insert.setString(4, task.getCategory());
+                insert.setString(5, task.getPriority());
+                insert.setString(6, task.getDeadline() == null ? null : DateCodec.format(task.getDeadline()));
+                insert.setString(7, task.getStatus() == null ? null : task.getStatus().name());
+                insert.addBatch();
+                addWords(insertWords, task.getId(), task.getTitle(), task.getDescription());
+                if (++pending == TaskStreamLoader.DEFAULT_BATCH_SIZE) {
+                    insert.executeBatch();
+                    insertWords.executeBatch();
+                    pending = 0;
+                }
+            }
+            insert.executeBatch();
+            insertWords.executeBatch();
+        }
+    }
+
+    // Adds a row per word of the text to the batch, with TextIndex's flags
+    private static void addWords(PreparedStatement insert, long id, String title, String description) throws SQLException {
+        Map<String, Integer> words = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : TextIndex.flags(title, description).entrySet()) {
+            words.merge(word(entry.getKey()), entry.getValue(), (a, b) -> a | b); // Cut words may coincide
+        }
+        for (Map.Entry<String, Integer> entry : words.entrySet()) {
+            insert.setString(1, entry.getKey());
+            insert.setLong(2, id);
+            insert.setInt(3, entry.getValue());
+            insert.addBatch();
+        }
+    }
+
+    private static String word(String token) {
+        return token.length() > MAX_WORD ? token.substring(0, MAX_WORD) : token;
+    }
+
+    private static Task readTask(ResultSet row) throws SQLException {
+        Task task = new Task();
+        task.setId(row.getLong(1));
+        String title = row.getString(2);
+        if (title != null && !title.isEmpty()) {
+            task.setTitle(title);
+        }
+        task.setDescription(row.getString(3));
+        task.setCategory(row.getString(4));
+        task.setPriority(row.getString(5));
+        String deadline = row.getString(6);
+        task.setDeadline(deadline == null ? null : DateCodec.parse(deadline));
+        String status = row.getString(7);
+        task.setStatus(status == null ? null : StatusAdapter.parse(status));
+        return task;
+    }
+
+    // Streams the rows of a query in batches
+    private static void readTasks(PreparedStatement query, Consumer<List<Task>> onBatch) throws SQLException {
+        query.setFetchSize(TaskStreamLoader.DEFAULT_BATCH_SIZE);
+        try (ResultSet rows = query.executeQuery()) {
+            List<Task> batch = new ArrayList<>(TaskStreamLoader.DEFAULT_BATCH_SIZE);
+            while (rows.next()) {
+                batch.add(readTask(rows));
+                if (batch.size() == TaskStreamLoader.DEFAULT_BATCH_SIZE) {
+                    onBatch.accept(batch);
+                    batch = new ArrayList<>(TaskStreamLoader.DEFAULT_BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                onBatch.accept(batch);
+            }
+        }
+    }
+
+    // -1 if the value was never set
+    private long meta(String name) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement("SELECT val FROM meta WHERE name = ?")) {
+            query.setString(1, name);
+            try (ResultSet row = query.executeQuery()) {
+                return row.next() ? row.getLong(1) : -1;
+            }
+        }
+    }
+
+    private void setMeta(String name, long value) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM meta WHERE name = ?");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO meta (name, val) VALUES (?, ?)")) {
+            delete.setString(1, name);
+            delete.executeUpdate();
+            insert.setString(1, name);
+            insert.setLong(2, value);
+            insert.executeUpdate();
+        }
+    }
+
+    // The first string after every string starting with the prefix, e.g. "tax" -> "tay"
+    private static String after(String prefix) {
+        return prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1);
+    }
+
+    private IOException rollback(SQLException e) {
+        try {
+            connection.rollback();
+        } catch (SQLException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+        return new IOException(e);
+    }
+
+    /**
+     * The tasks of one manager. Categories not read yet are remembered by symbol id, with the name
+     * their rows have in the database. Those rows do not change until they are read, since the
+     * manager reads a category before editing its tasks, so filtered reads and counts over them are
+     * answered live with indexed queries. Only the summary counters, which need every row, are
+     * summed once per day.
+     */
+    private final class Tasks implements TaskStore {
+        private final Map<Integer, String> unloaded = new HashMap<>(); // category symbol id -> name in the database
+        private final Map<Integer, TaskStatistics.Counts> summaries = new HashMap<>(); // of unloaded categories
+        private LocalDate summarized; // the day summaries are relative to, or null
+
+        @Override
+        public Loaded load(Consumer<List<Task>> onBatch, boolean all) {
+            synchronized (SqlStorage.this) {
+                List<Task> loadedTasks = new ArrayList<>();
+                long total = 0;
+                try {
+                    long nextId = Math.max(1, meta("nextId"));
+                    if (all) {
+                        try (PreparedStatement query = connection.prepareStatement(
+                                "SELECT " + TASK_COLUMNS + " FROM tasks ORDER BY id")) {
+                            readTasks(query, batch -> {
+                                loadedTasks.addAll(batch);
+                                onBatch.accept(batch);
+                            });
+                        }
+                        total = loadedTasks.size();
+                    } else {
+                        try (Statement statement = connection.createStatement();
+                             ResultSet rows = statement.executeQuery("SELECT category, COUNT(*) FROM tasks GROUP BY category")) {
+                            while (rows.next()) {
+                                String category = rows.getString(1);
+                                unloaded.put(CategoryManager.symbols().intern(category), category);
+                                total += rows.getLong(2);
+                            }
+                        }
+                    }
+                    connection.commit();
+                    for (Task task : loadedTasks) {
+                        nextId = Math.max(nextId, task.getId() + 1);
+                    }
+                    System.out.println("Tasks loaded from " + url + " (" + loadedTasks.size() + " of " + total + " tasks read)");
+                    return new Loaded(loadedTasks, nextId, false);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Cannot read tasks from " + url, e);
+                }
+            }
+        }
+
+        @Override
+        public boolean answersQueries() {
+            return true;
+        }
+
+        @Override
+        public Collection<Integer> unloadedCategories() {
+            synchronized (SqlStorage.this) {
+                return new ArrayList<>(unloaded.keySet());
+            }
+        }
+
+        @Override
+        public Collection<Integer> unloadedDueBefore(LocalDate day) {
+            Filter filter = new Filter().and("deadline < ?", DateCodec.format(day)).and("(" + OPEN + ")");
+            return unloadedWhere(filter);
+        }
+
+        @Override
+        public Collection<Integer> unloadedWith(String priority, Task.Status status) {
+            return unloadedWhere(new Filter().priority(priority).status(status));
+        }
+
+        // Looked up by primary key, a few hundred ids per query
+        @Override
+        public Collection<Integer> unloadedHolding(Collection<Long> ids) {
+            Set<Integer> holding = new HashSet<>();
+            Long[] all = ids.toArray(new Long[0]);
+            for (int from = 0; from < all.length; from += ID_BATCH_SIZE) {
+                Long[] batch = Arrays.copyOfRange(all, from, Math.min(all.length, from + ID_BATCH_SIZE));
+                String marks = String.join(", ", Collections.nCopies(batch.length, "?"));
+                holding.addAll(unloadedWhere(new Filter().and("id IN (" + marks + ")", (Object[]) batch)));
+            }
+            return holding;
+        }
+
+        @Override
+        public long countUnloaded(String category, String priority, Task.Status status) {
+            synchronized (SqlStorage.this) {
+                if (unloaded.isEmpty()) {
+                    return 0;
+                }
+                Filter filter = new Filter().priority(priority).status(status);
+                String sql;
+                if (category != null) {
+                    int id = CategoryManager.symbols().idOf(category);
+                    if (id == SymbolTable.NONE || !unloaded.containsKey(id)) {
+                        return 0;
+                    }
+                    filter.category(unloaded.get(id));
+                    sql = "SELECT NULL, COUNT(*) FROM tasks WHERE " + filter;
+                } else {
+                    sql = "SELECT category, COUNT(*) FROM tasks WHERE " + filter + " GROUP BY category";
+                }
+                Map<String, Integer> byName = unloadedByName();
+                long count = 0;
+                try (PreparedStatement query = filter.prepare(sql);
+                     ResultSet rows = query.executeQuery()) {
+                    while (rows.next()) {
+                        if (category != null || byName.containsKey(rows.getString(1))) {
+                            count += rows.getLong(2);
+                        }
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Cannot count tasks in " + url, e);
+                }
+                return count;
+            }
+        }
+
+        @Override
+        public List<Task> queryUnloaded(String category, String priority, Task.Status status, int limit) {
+            synchronized (SqlStorage.this) {
+                Filter filter = new Filter().priority(priority).status(status);
+                if (!unloadedOnly(filter, category)) {
+                    return List.of();
+                }
+                return read(filter, "SELECT " + TASK_COLUMNS + " FROM tasks WHERE " + filter + " ORDER BY id LIMIT ?", limit);
+            }
+        }
+
+        @Override
+        public List<Task> queryUnloadedDue(LocalDate from, LocalDate to, int limit) {
+            synchronized (SqlStorage.this) {
+                Filter filter = new Filter().and("deadline IS NOT NULL");
+                if (from != null) {
+                    filter.and("deadline >= ?", DateCodec.format(from));
+                }
+                if (to != null) {
+                    filter.and("deadline < ?", DateCodec.format(to));
+                }
+                if (!unloadedOnly(filter, null)) {
+                    return List.of();
+                }
+                return read(filter, "SELECT " + TASK_COLUMNS + " FROM tasks WHERE " + filter + " ORDER BY deadline, id LIMIT ?", limit);
+            }
+        }
+
+        /**
+         * One query joining the tasks with, per term, the best score of the words it starts, found as
+         * a range of the task_words key. The database ranks the rows and applies the limit.
+         */
+        @Override
+        public List<Task> searchUnloaded(List<String> words, String category, String priority, int limit) {
+            synchronized (SqlStorage.this) {
+                Filter filter = new Filter().priority(priority);
+                if (!unloadedOnly(filter, category)) {
+                    return List.of();
+                }
+                StringBuilder joins = new StringBuilder();
+                StringBuilder relevance = new StringBuilder();
+                int term = 0;
+                for (String word : new LinkedHashSet<>(words)) {
+                    String prefix = word(word);
+                    String w = "w" + term++;
+                    joins.append(" JOIN (SELECT task_id, MAX(").append(WORD_SCORE).append(") AS score FROM task_words")
+                            .append(" WHERE word >= ? AND word < ? GROUP BY task_id) ").append(w)
+                            .append(" ON ").append(w).append(".task_id = t.id");
+                    relevance.append(relevance.length() == 0 ? "" : " + ").append(w).append(".score");
+                    filter.leading(prefix, prefix, after(prefix));
+                }
+                return read(filter, "SELECT t.id, t.title, t.description, t.category, t.priority, t.deadline, t.status, "
+                        + relevance + " AS relevance FROM tasks t" + joins + " WHERE " + filter
+                        + " ORDER BY relevance DESC, t.id LIMIT ?", limit);
+            }
+        }
+
+        // Restricts the filter to the rows of the unloaded categories, or of one of them; false if there are none
+        private boolean unloadedOnly(Filter filter, String category) {
+            if (category != null) {
+                int id = CategoryManager.symbols().idOf(category);
+                if (id == SymbolTable.NONE || !unloaded.containsKey(id)) {
+                    return false;
+                }
+                filter.category(unloaded.get(id));
+                return true;
+            }
+            if (unloaded.isEmpty()) {
+                return false;
+            }
+            List<String> names = new ArrayList<>();
+            for (String name : unloaded.values()) {
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+            String in = names.isEmpty() ? "1 = 0" : "category IN (" + String.join(", ", Collections.nCopies(names.size(), "?")) + ")";
+            filter.and("(" + in + (unloaded.containsValue(null) ? " OR category IS NULL)" : ")"), names.toArray());
+            return true;
+        }
+
+        // The rows of a query ending in LIMIT ?, named with the categories' current names
+        private List<Task> read(Filter filter, String sql, int limit) {
+            Map<String, Integer> byName = unloadedByName();
+            List<Task> tasks = new ArrayList<>();
+            try (PreparedStatement query = filter.prepare(sql, limit)) {
+                readTasks(query, batch -> {
+                    for (Task task : batch) {
+                        task.setCategory(CategoryManager.symbols().name(byName.get(task.getCategory())));
+                        tasks.add(task);
+                    }
+                });
+                connection.commit();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot query tasks in " + url, e);
+            }
+            return tasks;
+        }
+
+        // One grouped pass over the rows per day; the rows of unloaded categories do not change meanwhile
+        @Override
+        public TaskStatistics.Counts summarizeUnloaded(LocalDate day) {
+            synchronized (SqlStorage.this) {
+                if (!day.equals(summarized)) {
+                    summaries.clear();
+                    String today = DateCodec.format(day);
+                    String week = DateCodec.format(day.plusDays(7));
+                    try (PreparedStatement query = connection.prepareStatement("SELECT category, COUNT(*),"
+                            + " SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END),"
+                            + " SUM(CASE WHEN (status IS NULL OR status <> 'COMPLETED') AND deadline < ? THEN 1 ELSE 0 END),"
+                            + " SUM(CASE WHEN deadline >= ? AND deadline < ? THEN 1 ELSE 0 END)"
+                            + " FROM tasks GROUP BY category")) {
+                        query.setString(1, today);
+                        query.setString(2, today);
+                        query.setString(3, week);
+                        Map<String, Integer> byName = unloadedByName();
+                        try (ResultSet rows = query.executeQuery()) {
+                            while (rows.next()) {
+                                Integer category = byName.get(rows.getString(1));
+                                if (category != null) {
+                                    summaries.put(category, new TaskStatistics.Counts(rows.getInt(2), rows.getInt(3),
+                                            rows.getInt(4), rows.getInt(5)));
+                                }
+                            }
+                        }
+                        connection.commit();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Cannot count tasks in " + url, e);
+                    }
+                    summarized = day;
+                }
+                TaskStatistics.Counts sum = new TaskStatistics.Counts();
+                for (int category : unloaded.keySet()) {
+                    TaskStatistics.Counts counts = summaries.get(category);
+                    if (counts != null) {
+                        sum = sum.plus(counts);
+                    }
+                }
+                return sum;
+            }
+        }
+
+        // The unloaded categories with a row matching the filter, with one indexed query
+        private List<Integer> unloadedWhere(Filter filter) {
+            List<Integer> matching = new ArrayList<>();
+            synchronized (SqlStorage.this) {
+                if (unloaded.isEmpty()) {
+                    return matching;
+                }
+                Map<String, Integer> byName = unloadedByName();
+                try (PreparedStatement query = filter.prepare("SELECT DISTINCT category FROM tasks WHERE " + filter);
+                     ResultSet rows = query.executeQuery()) {
+                    while (rows.next()) {
+                        Integer category = byName.get(rows.getString(1));
+                        if (category != null) {
+                            matching.add(category);
+                        }
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Cannot query tasks in " + url, e);
+                }
+            }
+            return matching;
+        }
+
+        // Name in the database -> symbol id; the tasks without a category are under null
+        private Map<String, Integer> unloadedByName() {
+            Map<String, Integer> byName = new HashMap<>();
+            for (Map.Entry<Integer, String> entry : unloaded.entrySet()) {
+                byName.put(entry.getValue(), entry.getKey());
+            }
+            return byName;
+        }
+
+        // Each category with an indexed query on the name its rows have in the database
+        @Override
+        public void loadCategories(Collection<Integer> categories, Consumer<List<Task>> onBatch) {
+            synchronized (SqlStorage.this) {
+                for (int category : categories) {
+                    if (!unloaded.containsKey(category)) {
+                        continue;
+                    }
+                    String stored = unloaded.remove(category);
+                    String name = CategoryManager.symbols().name(category);
+                    Filter filter = new Filter().category(stored);
+                    try (PreparedStatement query = filter.prepare(
+                            "SELECT " + TASK_COLUMNS + " FROM tasks WHERE " + filter + " ORDER BY id")) {
+                        readTasks(query, batch -> {
+                            for (Task task : batch) {
+                                task.setCategory(name); // The category may have been renamed since the last write
+                            }
+                            onBatch.accept(batch);
+                        });
+                        connection.commit();
+                    } catch (SQLException e) {
+                        System.out.println("Cannot read category " + name + " from " + url + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        // The rows go away with the DELETE_CATEGORY entry of the next write
+        @Override
+        public void categoryDeleted(int category) {
+            synchronized (SqlStorage.this) {
+                unloaded.remove(category);
+            }
+        }
+
+        /**
+         * Applies the changes in one transaction: renames and deleted categories first, as single
+         * statements, then the changed rows are replaced and the removed ones deleted by id.
+         */
+        @Override
+        public void write(TaskChanges changes) throws IOException {
+            TaskSnapshot snapshot = changes.getSnapshot();
+            synchronized (SqlStorage.this) {
+                try (Statement statement = connection.createStatement()) {
+                    if (changes.isReplaced()) {
+                        statement.executeUpdate("DELETE FROM tasks");
+                        statement.executeUpdate("DELETE FROM task_words");
+                    }
+                    for (TaskJournal.Entry rename : changes.getRenames()) {
+                        applyRename(rename);
+                    }
+                    List<Task> written = new ArrayList<>();
+                    if (changes.isFull()) {
+                        for (TaskRecord record : snapshot) {
+                            written.add(record.toTask());
+                        }
+                    } else {
+                        for (long id : changes.getWritten()) {
+                            written.add(snapshot.get(id).toTask());
+                        }
+                    }
+                    try (PreparedStatement delete = connection.prepareStatement("DELETE FROM tasks WHERE id = ?");
+                         PreparedStatement deleteWords = connection.prepareStatement("DELETE FROM task_words WHERE task_id = ?")) {
+                        List<Long> deleted = new ArrayList<>();
+                        if (!changes.isReplaced()) {
+                            for (Task task : written) {
+                                deleted.add(task.getId());
+                            }
+                        }
+                        for (long id : changes.getRemoved()) {
+                            deleted.add(id);
+                        }
+                        for (long id : deleted) {
+                            delete.setLong(1, id);
+                            delete.addBatch();
+                            deleteWords.setLong(1, id);
+                            deleteWords.addBatch();
+                        }
+                        delete.executeBatch();
+                        deleteWords.executeBatch();
+                    }
+                    insertTasks(written);
+                    setMeta("nextId", changes.getNextId());
+                    connection.commit();
+                } catch (SQLException e) {
+                    throw rollback(e);
+                }
+            }
+        }
+
+        private void applyRename(TaskJournal.Entry rename) throws SQLException {
+            String sql;
+            switch (rename.op) {
+                case RENAME_CATEGORY:
+                    sql = "UPDATE tasks SET category = ? WHERE category = ?";
+                    for (Map.Entry<Integer, String> entry : unloaded.entrySet()) {
+                        if (rename.from.equals(entry.getValue())) {
+                            entry.setValue(rename.to); // Read under the new name from now on
+                        }
+                    }
+                    break;
+                case RENAME_PRIORITY:
+                    sql = "UPDATE tasks SET priority = ? WHERE priority = ?";
+                    break;
+                default:
+                    try (PreparedStatement deleteWords = connection.prepareStatement(
+                            "DELETE FROM task_words WHERE task_id IN (SELECT id FROM tasks WHERE category = ?)");
+                         PreparedStatement delete = connection.prepareStatement("DELETE FROM tasks WHERE category = ?")) {
+                        deleteWords.setString(1, rename.from);
+                        deleteWords.executeUpdate();
+                        delete.setString(1, rename.from);
+                        delete.executeUpdate();
+                    }
+                    return;
+            }
+            try (PreparedStatement update = connection.prepareStatement(sql)) {
+                update.setString(1, rename.to);
+                update.setString(2, rename.from);
+                update.executeUpdate();
+            }
+        }
+    }
+
+    // The conditions of a WHERE clause on indexed columns, with their parameters; toString() is the clause
+    private final class Filter {
+        private final StringBuilder where = new StringBuilder("1 = 1");
+        private final List<Object> leading = new ArrayList<>(); // of SQL before the clause, e.g. joined subqueries
+        private final List<Object> parameters = new ArrayList<>();
+
+        Filter leading(Object... values) {
+            leading.addAll(List.of(values));
+            return this;
+        }
+
+        Filter and(String condition, Object... values) {
+            where.append(" AND ").append(condition);
+            parameters.addAll(List.of(values));
+            return this;
+        }
+
+        // Null is the tasks without a category
+        Filter category(String name) {
+            return name == null ? and("category IS NULL") : and("category = ?", name);
+        }
+
+        // Null is any priority
+        Filter priority(String name) {
+            return name == null ? this : and("priority = ?", name);
+        }
+
+        // Null is any status
+        Filter status(Task.Status status) {
+            return status == null ? this : and("status = ?", status.name());
+        }
+
+        // Binds the leading parameters, the clause's, then the trailing ones, e.g. a LIMIT
+        PreparedStatement prepare(String sql, Object... trailing) throws SQLException {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            List<Object> all = new ArrayList<>(leading);
+            all.addAll(parameters);
+            all.addAll(List.of(trailing));
+            for (int i = 0; i < all.size(); i++) {
+                statement.setObject(i + 1, all.get(i));
+            }
+            return statement;
+        }
+
+        @Override
+        public String toString() {
+            return where.toString();
+        }
+    }
+}
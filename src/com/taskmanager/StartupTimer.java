@@ -0,0 +1,81 @@
+package com.taskmanager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Records when each startup phase began and ended, relative to the moment the timer was created.
+ * Phases may overlap, since the stores load in parallel. Thread-safe.
+ */
+public class StartupTimer {
+    private final long origin = System.nanoTime();
+    private final Map<String, long[]> phases = new LinkedHashMap<>(); // phase -> {start, end} in nanos since origin; end is -1 while running
+
+    public synchronized void begin(String phase) {
+        phases.put(phase, new long[]{System.nanoTime() - origin, -1});
+    }
+
+    public synchronized void end(String phase) {
+        long[] span = phases.get(phase);
+        if (span != null && span[1] < 0) {
+            span[1] = System.nanoTime() - origin;
+        }
+    }
+
+    public <T> T time(String phase, Supplier<T> work) {
+        begin(phase);
+        try {
+            return work.get();
+        } finally {
+            end(phase);
+        }
+    }
+
+    /**
+     * @return One line per phase: start and end in milliseconds since startup, and its duration.
+     */
+    public synchronized String report() {
+        StringBuilder report = new StringBuilder("Startup timings (ms since launch):\n");
+        for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+            long[] span = phase.getValue();
+            report.append(String.format("  %-20s %7d .. %s%n", phase.getKey(), millis(span[0]),
+                    span[1] < 0 ? "unfinished" : String.format("%7d  (%d ms)", millis(span[1]), millis(span[1] - span[0]))));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Appends the finished phases to a CSV file ({@code timestamp,phase,start_ms,end_ms}), creating it
+     * with a header if needed, so startup times can be compared from one run or release to the next.
+     *
+     * @param csv The file to append to.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized void appendTo(Path csv) throws IOException {
+        boolean exists = Files.exists(csv);
+        String timestamp = LocalDateTime.now().withNano(0).toString();
+        try (Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (!exists) {
+                out.write("timestamp,phase,start_ms,end_ms\n");
+            }
+            for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+                long[] span = phase.getValue();
+                if (span[1] >= 0) {
+                    out.write(timestamp + "," + phase.getKey() + "," + millis(span[0]) + "," + millis(span[1]) + "\n");
+                }
+            }
+        }
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
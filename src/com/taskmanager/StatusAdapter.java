@@ -0,0 +1,44 @@
+package com.taskmanager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * JSON form of a {@link Task.Status}: its name, as Gson's enum adapter writes it. An unknown name
+ * reads as null instead of failing the whole file.
+ */
+public class StatusAdapter extends TypeAdapter<Task.Status> {
+    private static final Task.Status[] STATUSES = Task.Status.values();
+
+    @Override
+    public void write(JsonWriter out, Task.Status status) throws IOException {
+        if (status == null) {
+            out.nullValue();
+        } else {
+            out.value(status.name());
+        }
+    }
+
+    @Override
+    public Task.Status read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return parse(in.nextString());
+    }
+
+    // Compares against the constants instead of Status.valueOf, which throws on unknown names
+    static Task.Status parse(String name) {
+        for (Task.Status status : STATUSES) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
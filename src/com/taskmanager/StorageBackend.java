@@ -0,0 +1,69 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Where the four stores are kept: tasks, reminders, categories and priorities. The managers hold
+ * their data in memory and go through this interface to read it at startup and to make their
+ * changes durable; writes run on the {@link PersistenceService} writer thread.
+ * <p>
+ * The backend is chosen with {@code -Dtaskly.backend}: {@code json} (the default) keeps the JSON
+ * files under medialab/, see {@link JsonStorage}; {@code sql} keeps an embedded database, see
+ * {@link SqlStorage}.
+ */
+interface StorageBackend {
+
+    /**
+     * @param gson The Gson instance for the JSON stores.
+     * @return The backend selected with {@code -Dtaskly.backend}, read on every call.
+     */
+    static StorageBackend configured(Gson gson) {
+        if ("sql".equalsIgnoreCase(System.getProperty("taskly.backend", "json"))) {
+            return SqlStorage.open(System.getProperty("taskly.jdbc.url", SqlStorage.DEFAULT_URL), gson);
+        }
+        return new JsonStorage(gson);
+    }
+
+    /**
+     * Opens the task store for one {@link TaskManager}. Every manager gets its own, since the store
+     * tracks what that manager has read.
+     *
+     * @param journaled Whether the store may record edits incrementally instead of rewriting a
+     *                  snapshot; backends that always write incrementally ignore it.
+     */
+    TaskStore openTasks(boolean journaled);
+
+    // The reminders as last written; missing ones read as an empty list
+    List<ReminderManager.StoredReminder> loadReminders() throws IOException;
+
+    void writeReminders(List<ReminderManager.StoredReminder> reminders) throws IOException;
+
+    /**
+     * Reads the reminders again if another program replaced them since they were last read or
+     * written here.
+     *
+     * @return The reminders, or {@code null} if nothing changed or the backend cannot tell.
+     */
+    default List<ReminderManager.StoredReminder> reloadReminders() throws IOException {
+        return null;
+    }
+
+    /**
+     * Reads a list of names, in the order written.
+     *
+     * @param store "categories" or "priorities".
+     * @return The names, or an empty list if none were written yet.
+     */
+    List<String> loadNames(String store) throws IOException;
+
+    void writeNames(String store, List<String> names) throws IOException;
+
+    // The directories whose files other programs may change, watched by DataWatcher
+    default List<Path> getDirectories() {
+        return List.of();
+    }
+}
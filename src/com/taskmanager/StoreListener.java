@@ -0,0 +1,21 @@
+package com.taskmanager;
+
+/**
+ * Receives the changes made to a store such as {@link TaskManager} or {@link ReminderManager},
+ * one item at a time, so views can update just what changed. Callbacks run on the thread that made
+ * the change, while the store's lock is held: they must be quick and must not call back into the
+ * store's mutators. UI listeners should hand the work over with {@code Platform.runLater}.
+ *
+ * @param <T> The stored item type.
+ */
+public interface StoreListener<T> {
+    void added(T item);
+
+    // The item's fields changed; the argument carries the new ones
+    void updated(T item);
+
+    void removed(T item);
+
+    // The whole content was replaced, e.g. after a load; listeners should re-read the store
+    void reloaded();
+}
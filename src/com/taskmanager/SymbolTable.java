@@ -0,0 +1,90 @@
+package com.taskmanager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives each distinct name (a category or a priority) a small integer id, so tasks can store the
+ * id instead of their own copy of the string. Ids are handed out in order from 0 and never reused;
+ * the name behind an id can be changed with {@link #rename}, which every task holding the id sees at
+ * once. Looking up a name or an id never blocks; adding and renaming are serialized.
+ * <p>
+ * The tables live for the whole process, see {@link CategoryManager#symbols()} and
+ * {@link PriorityManager#symbols()}. Ids are not persisted: the stores keep writing names.
+ */
+public class SymbolTable {
+    public static final int NONE = -1; // the id of null
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16]; // id -> current name; only the first size entries are used
+    private int size;
+
+    /**
+     * @return The id of the name, given a new one if it has none yet, or {@link #NONE} for {@code null}.
+     */
+    public int intern(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = name;
+            names = current; // Publishes the new entry to readers
+            ids.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * @return The id of the name, or {@link #NONE} if it has none (or is {@code null}).
+     */
+    public int idOf(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        return ids.getOrDefault(name, NONE);
+    }
+
+    /**
+     * @return The current name behind an id handed out by this table, or {@code null} for {@link #NONE}.
+     */
+    public String name(int id) {
+        return id == NONE ? null : names[id];
+    }
+
+    // Ids handed out so far; every id is below this
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gives an id a new name. Fails if the old name has no id, or if the new name already has one
+     * (the holders of the two ids would have to be merged, which only their owner can do).
+     *
+     * @return {@code true} if the name was changed.
+     */
+    public synchronized boolean rename(String oldName, String newName) {
+        Integer id = ids.get(oldName);
+        if (id == null || newName == null || ids.containsKey(newName)) {
+            return false;
+        }
+        ids.put(newName, id);
+        ids.remove(oldName);
+        String[] current = names;
+        current[id] = newName;
+        names = current;
+        return true;
+    }
+}
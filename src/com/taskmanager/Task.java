@@ -1,5 +1,7 @@
 package com.taskmanager;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.time.LocalDate;
 import java.util.Objects;
 
@@ -11,6 +13,7 @@ import java.util.Objects;
  * @version 1.0
  * @since 19-02-2025
  */
+@JsonAdapter(TaskAdapter.class)
 public class Task {
     /**
      * Enum representing the possible statuses of a task.
@@ -26,10 +29,11 @@ public class Task {
         OPEN, IN_PROGRESS, POSTPONED, COMPLETED, DELAYED
     }
 
+    private long id;
     private String title;
     private String description;
-    private String category;
-    private String priority;
+    private int category = SymbolTable.NONE; // id in CategoryManager.symbols()
+    private int priority = SymbolTable.NONE; // id in PriorityManager.symbols()
     private LocalDate deadline;
     private Status status;
 
@@ -56,12 +60,64 @@ public class Task {
         }
         this.title = title;
         this.description = description;
-        this.category = category;
-        this.priority = priority != null ? priority : "Default";
+        this.category = CategoryManager.symbols().intern(category);
+        this.priority = PriorityManager.symbols().intern(priority != null ? priority : "Default");
         this.deadline = deadline;
         this.status = Status.OPEN;
     }
 
+    /**
+     * Constructs an empty task, to be filled in field by field by {@link TaskAdapter}.
+     * No defaults are applied, so every field may still be null.
+     */
+    Task() {
+    }
+
+    /**
+     * Constructs a task from stored fields, e.g. a row of {@link TaskSnapshot}. The category and
+     * priority are symbol ids, so nothing is interned again.
+     */
+    Task(long id, String title, String description, int category, int priority, LocalDate deadline, Status status) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.category = category;
+        this.priority = priority;
+        this.deadline = deadline;
+        this.status = status;
+    }
+
+    /**
+     * Constructs a copy of another task, including its id and status.
+     * Other threads should read {@link TaskManager#snapshot()} rather than copies.
+     *
+     * @param other The task to copy.
+     */
+    public Task(Task other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.category = other.category;
+        this.priority = other.priority;
+        this.deadline = other.deadline;
+        this.status = other.status;
+    }
+
+    /**
+     * Gets the identifier of the task.
+     * Identifiers are assigned by {@link TaskManager} when the task is added and never change afterwards.
+     *
+     * @return The task identifier, or 0 if the task has not been added to a {@link TaskManager} yet.
+     */
+    public long getId() { return id; }
+
+    /**
+     * Sets the identifier of the task. Only {@link TaskManager} assigns identifiers.
+     *
+     * @param id The new identifier.
+     */
+    void setId(long id) { this.id = id; }
+
     /**
      * Gets the title of the task.
      *
@@ -105,28 +161,42 @@ public class Task {
      *
      * @return The category of the task.
      */
-    public String getCategory() { return category; }
+    public String getCategory() { return CategoryManager.symbols().name(category); }
 
     /**
      * Sets the category of the task.
      *
      * @param category The new category for the task.
      */
-    public void setCategory(String category) { this.category = category; }
+    public void setCategory(String category) { this.category = CategoryManager.symbols().intern(category); }
+
+    /**
+     * Gets the id of the task's category in {@link CategoryManager#symbols()}.
+     *
+     * @return The category id, or {@link SymbolTable#NONE} if the task has no category.
+     */
+    int getCategoryId() { return category; }
 
     /**
      * Gets the priority of the task.
      *
      * @return The priority of the task.
      */
-    public String getPriority() { return priority; }
+    public String getPriority() { return PriorityManager.symbols().name(priority); }
 
     /**
      * Sets the priority of the task.
      *
      * @param priority The new priority for the task.
      */
-    public void setPriority(String priority) { this.priority = priority; }
+    public void setPriority(String priority) { this.priority = PriorityManager.symbols().intern(priority); }
+
+    /**
+     * Gets the id of the task's priority in {@link PriorityManager#symbols()}.
+     *
+     * @return The priority id, or {@link SymbolTable#NONE} if the task has no priority.
+     */
+    int getPriorityId() { return priority; }
 
     /**
      * Gets the deadline of the task.
@@ -156,13 +226,24 @@ public class Task {
      */
     public void setStatus(Status status) { this.status = status; }
 
+    /**
+     * Tells whether the task counts as overdue on a given day: its deadline is before that day and
+     * it is not {@link Status#COMPLETED}.
+     *
+     * @param day The day to check against.
+     * @return {@code true} if the task should be marked {@link Status#DELAYED}.
+     */
+    public boolean isOverdueOn(LocalDate day) {
+        return status != Status.COMPLETED && deadline != null && deadline.isBefore(day);
+    }
+
     /**
      * Checks if the task is overdue and updates its status to {@link Status#DELAYED} if the deadline
      * has passed and the task is not already marked as {@link Status#COMPLETED}.
-     * This method should be called periodically to ensure task statuses are up-to-date.
+     * Tasks held by {@link TaskManager} are kept up to date by its overdue sweep instead.
      */
     public void checkAndUpdateStatus() {
-        if (status != Status.COMPLETED && deadline != null && deadline.isBefore(LocalDate.now())) {
+        if (isOverdueOn(LocalDate.now())) {
             this.status = Status.DELAYED;
         }
     }
@@ -176,7 +257,7 @@ public class Task {
     @Override
     public String toString() {
         return String.format("%s [%s] - %s (Deadline: %s, Priority: %s)",
-                title, category, status, deadline, priority);
+                title, getCategory(), status, deadline, getPriority());
     }
 
     /**
@@ -194,8 +275,8 @@ public class Task {
         Task task = (Task) o;
         return Objects.equals(title, task.title) &&
                 Objects.equals(description, task.description) &&
-                Objects.equals(category, task.category) &&
-                Objects.equals(priority, task.priority) &&
+                category == task.category &&
+                priority == task.priority &&
                 Objects.equals(deadline, task.deadline) &&
                 status == task.status;
     }
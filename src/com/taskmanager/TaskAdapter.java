@@ -0,0 +1,100 @@
+package com.taskmanager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JSON form of a {@link Task}, used by every Gson instance through {@code @JsonAdapter}. Tasks hold
+ * their category and priority as symbol ids, but the files keep the names, in the same shape the
+ * reflective adapter used to produce: {@code id, title, description, category, priority, deadline,
+ * status}, with null fields left out. Unknown fields are skipped, an unreadable deadline or status
+ * reads as null. Dates go through {@link DateCodec}.
+ */
+public class TaskAdapter extends TypeAdapter<Task> {
+    private static final LongAdder UNREADABLE_DATES = Metrics.getInstance().counter("json.unreadableDates");
+
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(task.getId());
+        writeString(out, "title", task.getTitle());
+        writeString(out, "description", task.getDescription());
+        writeString(out, "category", task.getCategory());
+        writeString(out, "priority", task.getPriority());
+        writeString(out, "deadline", task.getDeadline() == null ? null : DateCodec.format(task.getDeadline()));
+        writeString(out, "status", task.getStatus() == null ? null : task.getStatus().name());
+        out.endObject();
+    }
+
+    @Override
+    public Task read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Task task = new Task();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    task.setId(in.nextLong());
+                    break;
+                case "title":
+                    String title = in.nextString();
+                    if (!title.isEmpty()) {
+                        task.setTitle(title); // An empty title is read as a missing one
+                    }
+                    break;
+                case "description":
+                    task.setDescription(in.nextString());
+                    break;
+                case "category":
+                    task.setCategory(in.nextString());
+                    break;
+                case "priority":
+                    task.setPriority(in.nextString());
+                    break;
+                case "deadline":
+                    task.setDeadline(parseDate(in.nextString()));
+                    break;
+                case "status":
+                    task.setStatus(StatusAdapter.parse(in.nextString()));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return task;
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        LocalDate date = DateCodec.parse(value);
+        if (date == null) {
+            UNREADABLE_DATES.increment();
+        }
+        return date;
+    }
+}
@@ -0,0 +1,117 @@
+package com.taskmanager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The edits a {@link TaskManager} made since its store last wrote, collected under the manager's
+ * lock and handed to {@link TaskStore#write} as a whole. Tasks are tracked by id, so a task edited
+ * many times between two writes is written once, from the published {@link TaskSnapshot}.
+ * Renames and deleted categories are kept as journal entries, since they also reach tasks that
+ * are still on disk.
+ */
+final class TaskChanges {
+    private final Set<Long> written = new HashSet<>(); // added or updated, in the snapshot
+    private final Set<Long> removed = new HashSet<>();
+    private final Set<Integer> categories = new HashSet<>(); // symbol ids, before and after each edit
+    private final List<TaskJournal.Entry> renames = new ArrayList<>();
+    private boolean full; // every task in memory is to be written
+    private boolean replaced; // the tasks on disk are to be discarded first
+    private TaskSnapshot snapshot;
+    private long nextId;
+
+    // Caller holds the manager's lock
+    void written(Task task) {
+        written.add(task.getId());
+        categories.add(task.getCategoryId());
+    }
+
+    void touched(Task task) {
+        categories.add(task.getCategoryId());
+    }
+
+    void removed(Task task) {
+        written.remove(task.getId());
+        removed.add(task.getId());
+        categories.add(task.getCategoryId());
+    }
+
+    // A RENAME_CATEGORY, DELETE_CATEGORY or RENAME_PRIORITY entry
+    void renamed(TaskJournal.Entry entry) {
+        renames.add(entry);
+    }
+
+    // Whether the task was edited or removed since the last write
+    boolean isPending(long id) {
+        return written.contains(id) || removed.contains(id);
+    }
+
+    void writeAll() {
+        full = true;
+    }
+
+    void replaceAll() {
+        full = true;
+        replaced = true;
+    }
+
+    boolean isEmpty() {
+        return written.isEmpty() && removed.isEmpty() && renames.isEmpty() && !full;
+    }
+
+    // Seals the changes with the version they lead to
+    TaskChanges seal(TaskSnapshot snapshot, long nextId) {
+        this.snapshot = snapshot;
+        this.nextId = nextId;
+        return this;
+    }
+
+    // Ids of the tasks added or updated, ascending; all of them are in the snapshot
+    long[] getWritten() {
+        return sorted(written);
+    }
+
+    // Ids of the tasks removed, ascending
+    long[] getRemoved() {
+        return sorted(removed);
+    }
+
+    // Categories that gained, lost or changed a task
+    Set<Integer> getCategories() {
+        return categories;
+    }
+
+    // In the order they were made
+    List<TaskJournal.Entry> getRenames() {
+        return renames;
+    }
+
+    boolean isFull() {
+        return full;
+    }
+
+    boolean isReplaced() {
+        return replaced;
+    }
+
+    TaskSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    long getNextId() {
+        return nextId;
+    }
+
+    private static long[] sorted(Set<Long> ids) {
+        long[] sorted = new long[ids.size()];
+        int i = 0;
+        for (long id : ids) {
+            sorted[i++] = id;
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
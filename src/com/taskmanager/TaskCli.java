@@ -0,0 +1,276 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command-line access to the medialab/ stores without starting JavaFX, for bulk maintenance.
+ * Files are streamed record by record, as CSV ({@link TaskCsv}) or JSON lines (one task object per
+ * line) depending on the extension. Every command runs its edits as one {@link TaskManager#beginBatch()
+ * batch} and waits for a single flush of the stores before exiting.
+ * <p>
+ * Usage: {@code TaskCli <command> [arguments]}, see {@link #USAGE}.
+ */
+public class TaskCli {
+    private static final String USAGE = String.join("\n",
+            "Usage: TaskCli <command> [arguments]",
+            "  import <file.csv|file.jsonl>        add every task in the file (ids are reassigned)",
+            "  export <file.csv|file.jsonl>        write every task to the file",
+            "  reprioritize <category> <priority>  give every task in a category a new priority",
+            "  purge-completed                     remove completed tasks and their reminders",
+            "  stats                               print the summary counters",
+            "  count [category=<c>] [priority=<p>] [status=<s>]",
+            "                                      count the matching tasks, reading as few as the store allows");
+
+    private final DataContext context;
+    private final Gson gson;
+
+    private TaskCli(DataContext context, Gson gson) {
+        this.context = context;
+        this.gson = gson;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println(USAGE);
+            return;
+        }
+        try {
+            run(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            System.exit(1);
+        }
+    }
+
+    // Runs one command; malformed arguments throw IllegalArgumentException before anything is changed
+    static void run(String[] args) throws IOException {
+        Gson gson = Codecs.gson();
+        if (args[0].equals("count")) {
+            long start = System.nanoTime();
+            String result = count(new TaskManager(gson), args); // Not a DataContext, which reads every task
+            System.out.println(result + " (" + (System.nanoTime() - start) / 1_000_000 + " ms)");
+            return;
+        }
+        DataContext context = DataContext.start(gson);
+        context.whenReady().join();
+        TaskCli cli = new TaskCli(context, gson);
+        long start = System.nanoTime();
+        String result;
+        switch (args[0]) {
+            case "import":
+                requireArguments(args, 2);
+                result = cli.importTasks(Paths.get(args[1]));
+                break;
+            case "export":
+                requireArguments(args, 2);
+                result = cli.exportTasks(Paths.get(args[1]));
+                break;
+            case "reprioritize":
+                requireArguments(args, 3);
+                result = cli.reprioritize(args[1], args[2]);
+                break;
+            case "purge-completed":
+                result = cli.purgeCompleted();
+                break;
+            case "stats":
+                result = cli.stats();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args[0]);
+        }
+        PersistenceService.getInstance().flush(); // The one write of every store the command touched
+        System.out.println(result + " (" + (System.nanoTime() - start) / 1_000_000 + " ms)");
+    }
+
+    private String importTasks(Path file) throws IOException {
+        TaskManager taskManager = context.getTaskManager();
+        Set<String> categories = new HashSet<>(context.getCategoryManager().getCategories());
+        Set<String> priorities = new HashSet<>(context.getPriorityManager().getPriorities());
+        boolean csv = isCsv(file);
+        int imported = 0;
+        int skipped = 0;
+        int record = 0;
+        taskManager.beginBatch();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            while (true) {
+                Task task;
+                try {
+                    if (csv) {
+                        List<String> fields = TaskCsv.readRecord(in);
+                        if (fields == null) {
+                            break;
+                        }
+                        record++;
+                        if (record == 1 && "id".equals(fields.get(0))) {
+                            continue; // Header
+                        }
+                        task = TaskCsv.parse(fields);
+                    } else {
+                        String line = in.readLine();
+                        if (line == null) {
+                            break;
+                        }
+                        record++;
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        task = parseJsonLine(line);
+                    }
+                } catch (IllegalArgumentException | JsonParseException e) {
+                    System.out.println("Skipping record " + record + ": " + e.getMessage());
+                    skipped++;
+                    continue;
+                }
+                taskManager.addTask(task);
+                imported++;
+                // New categories and priorities become selectable in the UI too
+                if (task.getCategory() != null && categories.add(task.getCategory())) {
+                    context.getCategoryManager().addCategory(task.getCategory());
+                }
+                if (priorities.add(task.getPriority())) {
+                    context.getPriorityManager().addPriority(task.getPriority());
+                }
+            }
+        } finally {
+            taskManager.endBatch();
+        }
+        return "Imported " + imported + " tasks from " + file + (skipped > 0 ? ", skipped " + skipped : "");
+    }
+
+    private Task parseJsonLine(String line) {
+        Task task = gson.fromJson(line, Task.class);
+        if (task == null || task.getTitle() == null || task.getTitle().isEmpty()) {
+            throw new IllegalArgumentException("missing title");
+        }
+        // Gson bypasses the constructor, so apply its defaults here
+        Task checked = new Task(task.getTitle(), task.getDescription(), task.getCategory(), task.getPriority(), task.getDeadline());
+        if (task.getStatus() != null) {
+            checked.setStatus(task.getStatus());
+        }
+        return checked;
+    }
+
+    private String exportTasks(Path file) throws IOException {
+        TaskSnapshot tasks = context.getTaskManager().snapshot(); // Immutable, so nothing is copied or locked
+        boolean csv = isCsv(file);
+        PersistenceService.writeAtomically(file, out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write(TaskCsv.HEADER);
+                writer.write('\n');
+            }
+            for (TaskRecord record : tasks) {
+                Task task = record.toTask();
+                if (csv) {
+                    TaskCsv.write(task, writer);
+                } else {
+                    gson.toJson(task, Task.class, writer);
+                    writer.write('\n');
+                }
+            }
+            writer.flush();
+        });
+        return "Exported " + tasks.size() + " tasks to " + file;
+    }
+
+    private String reprioritize(String category, String priority) {
+        TaskManager taskManager = context.getTaskManager();
+        if (!context.getPriorityManager().getPriorities().contains(priority)) {
+            context.getPriorityManager().addPriority(priority);
+        }
+        List<Task> tasks = taskManager.getTasksInCategory(category);
+        taskManager.beginBatch();
+        try {
+            for (Task task : tasks) {
+                taskManager.updateTask(task.getId(), task.getTitle(), task.getDescription(), task.getCategory(),
+                        priority, task.getDeadline(), task.getStatus());
+            }
+        } finally {
+            taskManager.endBatch();
+        }
+        return "Set priority " + priority + " on " + tasks.size() + " tasks in " + category;
+    }
+
+    private String purgeCompleted() {
+        TaskManager taskManager = context.getTaskManager();
+        ReminderManager reminderManager = context.getReminderManager();
+        List<Task> completed = taskManager.getTasksWithStatus(Task.Status.COMPLETED);
+        Set<Long> ids = new HashSet<>();
+        for (Task task : completed) {
+            ids.add(task.getId());
+        }
+        reminderManager.deleteRemindersForTasks(ids);
+        taskManager.beginBatch();
+        try {
+            for (Task task : completed) {
+                taskManager.removeTask(task.getId());
+            }
+        } finally {
+            taskManager.endBatch();
+        }
+        return "Removed " + completed.size() + " completed tasks";
+    }
+
+    private String stats() {
+        TaskStatistics statistics = context.getTaskManager().getStatistics();
+        StringBuilder out = new StringBuilder();
+        appendCounts(out, "all", statistics.getTotals());
+        for (Map.Entry<String, TaskStatistics.Counts> category : statistics.getByCategory().entrySet()) {
+            appendCounts(out, "category " + category.getKey(), category.getValue());
+        }
+        for (Map.Entry<String, TaskStatistics.Counts> priority : statistics.getByPriority().entrySet()) {
+            appendCounts(out, "priority " + priority.getKey(), priority.getValue());
+        }
+        return out.append("Reminders: ").append(context.getReminderManager().getReminders().size()).toString();
+    }
+
+    private static String count(TaskManager taskManager, String[] args) {
+        Map<String, String> filters = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            int equals = args[i].indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected <filter>=<value>: " + args[i]);
+            }
+            filters.put(args[i].substring(0, equals), args[i].substring(equals + 1));
+        }
+        String status = filters.get("status");
+        Task.Status parsed = status == null ? null : StatusAdapter.parse(status.toUpperCase());
+        if (status != null && parsed == null) {
+            return "Unknown status " + status;
+        }
+        long count = taskManager.countTasks(filters.get("category"), filters.get("priority"), parsed);
+        return count + " tasks, " + taskManager.snapshot().size() + " of them read";
+    }
+
+    private static void appendCounts(StringBuilder out, String group, TaskStatistics.Counts counts) {
+        out.append(String.format("%-24s total %d, completed %d, overdue %d, due within a week %d%n", group,
+                counts.getTotal(), counts.getCompleted(), counts.getOverdue(), counts.getDueWithinWeek()));
+    }
+
+    private static boolean isCsv(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".csv");
+    }
+
+    private static void requireArguments(String[] args, int count) {
+        if (args.length < count) {
+            throw new IllegalArgumentException(args[0] + " takes " + (count - 1) + " argument" + (count > 2 ? "s" : ""));
+        }
+    }
+}
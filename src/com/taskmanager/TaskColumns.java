@@ -0,0 +1,149 @@
+package com.taskmanager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+
+/**
+ * One chunk of {@link TaskSnapshot}'s column store: up to {@link #ROWS} tasks kept as parallel
+ * columns instead of objects. The fixed-size fields share one buffer with a row stride of 24 bytes
+ * (id, category id, priority id, deadline as an epoch day, status ordinal); titles and descriptions
+ * are columns of string references. The columns are the only copy of a task that TaskManager keeps:
+ * a {@link Task} or {@link TaskRecord} is built from a row when someone asks for one. A sweep over
+ * a column reads consecutive memory rather than chasing a pointer per task.
+ * <p>
+ * With {@code -Dtaskly.columns=direct} the buffers are allocated outside the Java heap.
+ */
+final class TaskColumns {
+    static final int ROWS = 1024;
+    static final int NO_DEADLINE = Integer.MIN_VALUE;
+    static final byte NO_STATUS = -1;
+    static final byte REMOVED = -2; // a slot whose task was removed; its id stays so ids remain sorted
+
+    private static final boolean DIRECT = "direct".equals(System.getProperty("taskly.columns", "heap"));
+    private static final Task.Status[] STATUSES = Task.Status.values();
+    private static final int STRIDE = 24;
+    private static final int ID = 0;
+    private static final int CATEGORY = 8;
+    private static final int PRIORITY = 12;
+    private static final int DEADLINE = 16;
+    private static final int STATUS = 20;
+
+    private final ByteBuffer numbers;
+    private final String[] titles;
+    private final String[] descriptions;
+
+    TaskColumns() {
+        this.numbers = allocate();
+        this.titles = new String[ROWS];
+        this.descriptions = new String[ROWS];
+    }
+
+    private TaskColumns(TaskColumns other) {
+        this.numbers = allocate();
+        this.numbers.put(0, other.numbers, 0, ROWS * STRIDE);
+        this.titles = other.titles.clone();
+        this.descriptions = other.descriptions.clone();
+    }
+
+    private static ByteBuffer allocate() {
+        return (DIRECT ? ByteBuffer.allocateDirect(ROWS * STRIDE) : ByteBuffer.allocate(ROWS * STRIDE))
+                .order(ByteOrder.nativeOrder());
+    }
+
+    TaskColumns copy() {
+        return new TaskColumns(this);
+    }
+
+    void set(int row, Task task) {
+        int base = row * STRIDE;
+        numbers.putLong(base + ID, task.getId());
+        numbers.putInt(base + CATEGORY, task.getCategoryId());
+        numbers.putInt(base + PRIORITY, task.getPriorityId());
+        numbers.putInt(base + DEADLINE, task.getDeadline() == null ? NO_DEADLINE : (int) task.getDeadline().toEpochDay());
+        numbers.put(base + STATUS, task.getStatus() == null ? NO_STATUS : (byte) task.getStatus().ordinal());
+        titles[row] = task.getTitle();
+        descriptions[row] = task.getDescription();
+    }
+
+    void copyRow(int row, TaskColumns target, int targetRow) {
+        target.numbers.put(targetRow * STRIDE, numbers, row * STRIDE, STRIDE);
+        target.titles[targetRow] = titles[row];
+        target.descriptions[targetRow] = descriptions[row];
+    }
+
+    void markRemoved(int row) {
+        numbers.put(row * STRIDE + STATUS, REMOVED);
+        titles[row] = null;
+        descriptions[row] = null;
+    }
+
+    boolean isRemoved(int row) {
+        return status(row) == REMOVED;
+    }
+
+    long id(int row) {
+        return numbers.getLong(row * STRIDE + ID);
+    }
+
+    int category(int row) {
+        return numbers.getInt(row * STRIDE + CATEGORY);
+    }
+
+    int priority(int row) {
+        return numbers.getInt(row * STRIDE + PRIORITY);
+    }
+
+    int deadline(int row) {
+        return numbers.getInt(row * STRIDE + DEADLINE);
+    }
+
+    byte status(int row) {
+        return numbers.get(row * STRIDE + STATUS);
+    }
+
+    /**
+     * @return The row with this id among the first {@code rows}, or a negative value if there is none.
+     */
+    int find(long id, int rows) {
+        int low = 0;
+        int high = rows - 1;
+        long offset = id - id(0);
+        if (offset >= 0 && offset < high) {
+            // Ids ascend by at least one per row, so the row is at most this far in; without gaps, it is right there
+            high = (int) offset;
+            if (id(high) == id) {
+                return high;
+            }
+        }
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = id(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // A new, detached task with the row's fields
+    Task task(int row) {
+        int deadline = deadline(row);
+        byte status = status(row);
+        return new Task(id(row), titles[row], descriptions[row], category(row), priority(row),
+                deadline == NO_DEADLINE ? null : LocalDate.ofEpochDay(deadline),
+                status < 0 ? null : STATUSES[status]);
+    }
+
+    TaskRecord record(int row) {
+        int deadline = deadline(row);
+        byte status = status(row);
+        return new TaskRecord(id(row), titles[row], descriptions[row], category(row), priority(row),
+                deadline == NO_DEADLINE ? null : LocalDate.ofEpochDay(deadline),
+                status < 0 ? null : STATUSES[status]);
+    }
+}
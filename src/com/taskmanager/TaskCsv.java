@@ -0,0 +1,135 @@
+package com.taskmanager;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes tasks as CSV (RFC 4180: comma separated, fields quoted with {@code "} when they
+ * contain a comma, quote or line break). Records are handled one at a time, so files of any size
+ * can be streamed. Columns are those of {@link #HEADER}; empty fields stand for {@code null}.
+ */
+public class TaskCsv {
+    public static final String HEADER = "id,title,description,category,priority,deadline,status";
+
+    private TaskCsv() {
+    }
+
+    public static void write(Task task, Writer out) throws IOException {
+        writeField(out, String.valueOf(task.getId()));
+        out.write(',');
+        writeField(out, task.getTitle());
+        out.write(',');
+        writeField(out, task.getDescription());
+        out.write(',');
+        writeField(out, task.getCategory());
+        out.write(',');
+        writeField(out, task.getPriority());
+        out.write(',');
+        writeField(out, task.getDeadline() == null ? null : task.getDeadline().toString());
+        out.write(',');
+        writeField(out, task.getStatus() == null ? null : task.getStatus().name());
+        out.write('\n');
+    }
+
+    /**
+     * Builds a task from the fields of one record. The id column is ignored: imported tasks get new ids.
+     *
+     * @throws IllegalArgumentException if the record has too few fields, no title, or a bad date or status.
+     */
+    public static Task parse(List<String> fields) {
+        if (fields.size() < 7) {
+            throw new IllegalArgumentException("expected 7 fields, found " + fields.size());
+        }
+        String title = emptyToNull(fields.get(1));
+        if (title == null) {
+            throw new IllegalArgumentException("missing title");
+        }
+        LocalDate deadline;
+        try {
+            String date = emptyToNull(fields.get(5));
+            deadline = date == null ? null : LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("bad deadline '" + fields.get(5) + "'");
+        }
+        Task task = new Task(title, emptyToNull(fields.get(2)), emptyToNull(fields.get(3)), emptyToNull(fields.get(4)), deadline);
+        String status = emptyToNull(fields.get(6));
+        if (status != null) {
+            try {
+                task.setStatus(Task.Status.valueOf(status));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("bad status '" + status + "'");
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @param in A reader positioned at the start of a record; buffer it, it is read a char at a time.
+     * @return The record's fields, or {@code null} at the end of the input.
+     * @throws IOException if reading fails or the input ends inside a quoted field.
+     */
+    public static List<String> readRecord(Reader in) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = in.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        field.append('"');
+                    } else {
+                        in.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("CSV input ends inside a quoted field");
+        }
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,273 @@
+package com.taskmanager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over the tasks held by {@link TaskManager}: the ids of the tasks per category,
+ * priority and status, and deadline-ordered maps of all tasks and of those that can still become
+ * overdue. Ids are kept in {@link Ids}, hash sets of primitive longs, so an entry costs a slot in
+ * a long array rather than a boxed Long and a hash node. The index stores the values a task had
+ * when it was added, so callers must {@link #remove} a task before changing any indexed field and
+ * {@link #add} it again afterwards. Not thread-safe; TaskManager only uses it while holding its own lock.
+ */
+final class TaskIndex {
+    static final int ANY = Integer.MIN_VALUE; // a filter value in select() and count() that every task matches
+
+    private static final Ids EMPTY = new Ids(); // never added to
+    private static final int COMPLETED = Task.Status.COMPLETED.ordinal();
+    private static final int DELAYED = Task.Status.DELAYED.ordinal();
+
+    private final Map<Integer, Ids> byCategory = new HashMap<>(); // keyed by symbol id, so renames need no update
+    private final Map<Integer, Ids> byPriority = new HashMap<>();
+    private final Ids[] byStatus = new Ids[Task.Status.values().length + 1]; // by ordinal + 1; 0 holds tasks without one
+    private final NavigableMap<Integer, Ids> byDeadline = new TreeMap<>(); // keyed by epoch day
+    private final NavigableMap<Integer, Ids> openByDeadline = new TreeMap<>(); // tasks that can still become overdue
+
+    void add(Task task) {
+        add(task.getId(), task.getCategoryId(), task.getPriorityId(), deadline(task), status(task));
+    }
+
+    void remove(Task task) {
+        long id = task.getId();
+        removeFrom(byCategory, task.getCategoryId(), id);
+        removeFrom(byPriority, task.getPriorityId(), id);
+        byStatus[status(task) + 1].remove(id);
+        int deadline = deadline(task);
+        if (deadline != TaskColumns.NO_DEADLINE) {
+            removeFrom(byDeadline, deadline, id);
+            removeFrom(openByDeadline, deadline, id);
+        }
+    }
+
+    // Indexes every row of the snapshot's columns, without materializing the tasks
+    void rebuild(TaskSnapshot snapshot) {
+        byCategory.clear();
+        byPriority.clear();
+        Arrays.fill(byStatus, null);
+        byDeadline.clear();
+        openByDeadline.clear();
+        snapshot.forEachRow((id, category, priority, deadline, status) -> add(id, category, priority, deadline, status));
+    }
+
+    private void add(long id, int category, int priority, int deadline, int status) {
+        byCategory.computeIfAbsent(category, k -> new Ids()).add(id);
+        byPriority.computeIfAbsent(priority, k -> new Ids()).add(id);
+        if (byStatus[status + 1] == null) {
+            byStatus[status + 1] = new Ids();
+        }
+        byStatus[status + 1].add(id);
+        if (deadline != TaskColumns.NO_DEADLINE) {
+            byDeadline.computeIfAbsent(deadline, k -> new Ids()).add(id);
+            if (status != COMPLETED && status != DELAYED) {
+                openByDeadline.computeIfAbsent(deadline, k -> new Ids()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Ids of the tasks matching every filter, ascending. The smallest of the filtered sets is walked
+     * and checked against the others.
+     *
+     * @param category Symbol id of the category, {@link SymbolTable#NONE} for none, or {@link #ANY}.
+     * @param priority Symbol id of the priority, {@link SymbolTable#NONE} for none, or {@link #ANY}.
+     * @param status   Ordinal of the status, {@link TaskColumns#NO_STATUS} for none, or {@link #ANY}.
+     *                 At least one filter must not be {@link #ANY}.
+     */
+    long[] select(int category, int priority, int status) {
+        Ids[] sets = filtered(category, priority, status);
+        long[] ids = sets.length == 1 ? sets[0].toArray() : intersect(sets);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // The number of tasks select() would return, without collecting them when only one filter is set
+    int count(int category, int priority, int status) {
+        Ids[] sets = filtered(category, priority, status);
+        return sets.length == 1 ? sets[0].size() : intersect(sets).length;
+    }
+
+    /**
+     * Ids of the tasks with a deadline in a range, ordered by deadline, then id.
+     *
+     * @param from First epoch day included.
+     * @param to   First epoch day excluded.
+     */
+    long[] dueBetween(int from, int to) {
+        return flatten(byDeadline.subMap(from, true, to, false));
+    }
+
+    /**
+     * Ids of the tasks that are neither completed nor delayed and whose deadline is before a day,
+     * i.e. the tasks an overdue sweep on that day has to mark; ordered by deadline, then id.
+     *
+     * @param day Epoch day of the first day that is not overdue.
+     */
+    long[] openDueBefore(int day) {
+        return flatten(openByDeadline.headMap(day, false));
+    }
+
+    private Ids[] filtered(int category, int priority, int status) {
+        Ids[] sets = new Ids[3];
+        int count = 0;
+        if (category != ANY) {
+            sets[count++] = byCategory.getOrDefault(category, EMPTY);
+        }
+        if (priority != ANY) {
+            sets[count++] = byPriority.getOrDefault(priority, EMPTY);
+        }
+        if (status != ANY) {
+            Ids ids = byStatus[status + 1];
+            sets[count++] = ids == null ? EMPTY : ids;
+        }
+        sets = Arrays.copyOf(sets, count);
+        Arrays.sort(sets, (a, b) -> Integer.compare(a.size(), b.size()));
+        return sets;
+    }
+
+    // The ids in every set; sets[0] is the smallest
+    private static long[] intersect(Ids[] sets) {
+        long[] ids = sets[0].toArray();
+        int found = 0;
+        for (long id : ids) {
+            boolean inAll = true;
+            for (int i = 1; i < sets.length && inAll; i++) {
+                inAll = sets[i].contains(id);
+            }
+            if (inAll) {
+                ids[found++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, found);
+    }
+
+    private static long[] flatten(Map<Integer, Ids> byDay) {
+        int total = 0;
+        for (Ids ids : byDay.values()) {
+            total += ids.size();
+        }
+        long[] result = new long[total];
+        int offset = 0;
+        for (Ids ids : byDay.values()) {
+            long[] day = ids.toArray();
+            Arrays.sort(day);
+            System.arraycopy(day, 0, result, offset, day.length);
+            offset += day.length;
+        }
+        return result;
+    }
+
+    private static int deadline(Task task) {
+        return task.getDeadline() == null ? TaskColumns.NO_DEADLINE : (int) task.getDeadline().toEpochDay();
+    }
+
+    private static int status(Task task) {
+        return task.getStatus() == null ? TaskColumns.NO_STATUS : task.getStatus().ordinal();
+    }
+
+    private static void removeFrom(Map<Integer, Ids> buckets, int key, long id) {
+        Ids bucket = buckets.get(key);
+        if (bucket != null && bucket.remove(id) && bucket.size() == 0) {
+            buckets.remove(key);
+        }
+    }
+
+    /**
+     * A set of task ids in an open-addressing table of primitive longs with linear probing, at most
+     * three quarters full. Task ids are positive, so 0 marks a free slot.
+     */
+    static final class Ids {
+        private long[] slots = new long[8];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(long id) {
+            int mask = slots.length - 1;
+            for (int i = home(id, mask); slots[i] != 0; i = (i + 1) & mask) {
+                if (slots[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean add(long id) {
+            if (4 * (size + 1) > 3 * slots.length) {
+                resize(slots.length * 2);
+            }
+            int mask = slots.length - 1;
+            int i = home(id, mask);
+            for (; slots[i] != 0; i = (i + 1) & mask) {
+                if (slots[i] == id) {
+                    return false;
+                }
+            }
+            slots[i] = id;
+            size++;
+            return true;
+        }
+
+        boolean remove(long id) {
+            int mask = slots.length - 1;
+            int hole = home(id, mask);
+            while (slots[hole] != id) {
+                if (slots[hole] == 0) {
+                    return false;
+                }
+                hole = (hole + 1) & mask;
+            }
+            // Shift later entries of the probe run back into the hole, so no lookup stops early
+            for (int i = (hole + 1) & mask; slots[i] != 0; i = (i + 1) & mask) {
+                if (((i - home(slots[i], mask)) & mask) >= ((i - hole) & mask)) {
+                    slots[hole] = slots[i];
+                    hole = i;
+                }
+            }
+            slots[hole] = 0;
+            size--;
+            if (size > 0 && 8 * size < slots.length && slots.length > 8) {
+                resize(slots.length / 2);
+            }
+            return true;
+        }
+
+        // In no particular order
+        long[] toArray() {
+            long[] ids = new long[size];
+            int found = 0;
+            for (long slot : slots) {
+                if (slot != 0) {
+                    ids[found++] = slot;
+                }
+            }
+            return ids;
+        }
+
+        private void resize(int capacity) {
+            long[] old = slots;
+            slots = new long[capacity];
+            int mask = capacity - 1;
+            for (long id : old) {
+                if (id != 0) {
+                    int i = home(id, mask);
+                    while (slots[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = id;
+                }
+            }
+        }
+
+        // Ids are mostly consecutive; the multiplication spreads them over the table
+        private static int home(long id, int mask) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.taskmanager;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The task list shown by the UI: one {@link TaskViewModel} per task, kept in step with
+ * {@link TaskManager} through its {@link StoreListener} events. Each event touches only its own
+ * view-model, so editing one task redraws one cell instead of the whole list. The items are kept
+ * in id order, so the view of a removed task is found by binary search. Events are moved onto the
+ * FX thread as {@link TaskRecord}s taken when they arrive, so the views never read a task that
+ * another thread may still change; {@link #getItems()} and {@link #viewOf(Task)} must be used there.
+ */
+public class TaskListModel implements StoreListener<Task> {
+    private final TaskManager taskManager;
+    private final ObservableList<TaskViewModel> items = FXCollections.observableArrayList();
+    private final Map<Long, TaskViewModel> byId = new HashMap<>();
+
+    public TaskListModel(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        taskManager.addListener(this);
+    }
+
+    public ObservableList<TaskViewModel> getItems() {
+        return items;
+    }
+
+    // The view-model showing a task, shared by every list that shows it (e.g. search results)
+    public TaskViewModel viewOf(Task task) {
+        TaskViewModel view = byId.get(task.getId());
+        return view != null ? view : new TaskViewModel(TaskRecord.of(task));
+    }
+
+    /**
+     * Shows tasks that are still being loaded. Their ids may not be final yet, so they are not
+     * tracked; the {@link #reloaded()} event at the end of the load replaces them.
+     */
+    public void showLoading(List<Task> batch) {
+        List<TaskViewModel> views = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            views.add(new TaskViewModel(TaskRecord.of(task)));
+        }
+        items.addAll(views);
+    }
+
+    // Rebuilds the whole list from the manager; only needed after a load, or once the store handed over more tasks
+    public void reload() {
+        List<Task> tasks = taskManager.getListedTasks();
+        List<TaskViewModel> views = new ArrayList<>(tasks.size());
+        byId.clear();
+        for (Task task : tasks) {
+            TaskViewModel view = new TaskViewModel(TaskRecord.of(task));
+            byId.put(task.getId(), view);
+            views.add(view);
+        }
+        items.setAll(views);
+    }
+
+    // Events may arrive again after a reload already picked the change up, so each one is idempotent
+
+    @Override
+    public void added(Task task) {
+        TaskRecord record = TaskRecord.of(task);
+        Platform.runLater(() -> show(record));
+    }
+
+    @Override
+    public void updated(Task task) {
+        TaskRecord record = TaskRecord.of(task);
+        Platform.runLater(() -> {
+            TaskViewModel view = byId.get(record.getId());
+            if (view != null) {
+                view.refresh(record);
+            }
+        });
+    }
+
+    @Override
+    public void removed(Task task) {
+        long id = task.getId();
+        Platform.runLater(() -> hide(id));
+    }
+
+    // On the FX thread. Inserted at its place in id order, which is the end for a new task.
+    void show(TaskRecord task) {
+        TaskViewModel view = byId.get(task.getId());
+        if (view != null) {
+            view.refresh(task);
+            return;
+        }
+        view = new TaskViewModel(task);
+        byId.put(task.getId(), view);
+        int position = position(task.getId());
+        items.add(position < 0 ? -position - 1 : position, view);
+    }
+
+    // On the FX thread
+    void hide(long id) {
+        TaskViewModel view = byId.remove(id);
+        if (view == null) {
+            return;
+        }
+        int position = position(id);
+        if (position >= 0 && items.get(position) == view) {
+            items.remove(position);
+        } else {
+            items.remove(view); // Only while loading, before reload() put the items in id order
+        }
+    }
+
+    // Binary search of items, which reload() and show() keep in id order: the index, or -(insertion point) - 1
+    private int position(long id) {
+        int low = 0;
+        int high = items.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = items.get(mid).getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    @Override
+    public void reloaded() {
+        Platform.runLater(this::reload);
+    }
+}
@@ -1,113 +1,965 @@
 package com.taskmanager;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
-import java.lang.reflect.Type;
+import java.lang.ref.WeakReference;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 public class TaskManager {
-    private static final String FILE_PATH = "medialab/tasks.json";
-    private List<Task> tasks = new ArrayList<>();
-    private final Gson gson;
+    private static final Metrics.Histogram LOAD_TIME = Metrics.getInstance().histogram("tasks.load");
+    private static final Metrics.Histogram SEARCH_TIME = Metrics.getInstance().histogram("search");
+    private static final Metrics.Histogram SWEEP_TIME = Metrics.getInstance().histogram("tasks.overdueSweep");
+    private static final LongAdder OUTSIDE_CHANGES = Metrics.getInstance().counter("tasks.outsideChanges");
+    private static final int UNKNOWN = Integer.MIN_VALUE + 1; // a category or priority no task was ever given
+    // The newest manager, whose published snapshot tasks.count reports; held weakly, so a manager
+    // that is no longer used (a finished CLI command, a benchmark trial) can still be collected
+    private static volatile WeakReference<TaskManager> counted = new WeakReference<>(null);
+
+    static {
+        Metrics.getInstance().gauge("tasks.count", () -> {
+            TaskManager manager = counted.get();
+            return manager == null ? 0 : manager.snapshot.size();
+        });
+    }
+
+    private final TaskSnapshot.Builder records = new TaskSnapshot.Builder(); // the tasks, with changes not yet published
+    private final TaskIndex index = new TaskIndex(); // ids by category, priority, status and deadline
+    private final TextIndex textIndex = new TextIndex(); // words of titles and descriptions
+    private final TaskStatistics statistics = new TaskStatistics(); // summary counters, kept in step with the tasks
+    private volatile TaskSnapshot snapshot = TaskSnapshot.empty(); // the latest published version
+    private final List<StoreListener<Task>> listeners = new CopyOnWriteArrayList<>();
+    private long nextId = 1;
+    private boolean rewrite; // the store asked for every task to be saved once after the load
+    private final TaskStore store; // see StorageBackend
+    private TaskChanges changes = new TaskChanges(); // edits the store has not written yet
+    private volatile boolean partial; // the store still holds categories that were not read; see loadStored()
+    private int batchDepth; // > 0 between beginBatch() and endBatch()
+    private boolean batchDirty; // a mutation happened during the current batch
+    private boolean loading; // true while loadInBackground() is still reading
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
 
     public TaskManager(Gson gson) {
-        this.gson = gson;
-        this.tasks = loadTasks();
-        updateOverdueTasks(); // Mark overdue tasks when loading
+        this(gson, Boolean.parseBoolean(System.getProperty("taskly.journal", "true")));
     }
 
-    public List<Task> getTasks() {
-        return tasks;
+    public TaskManager(Gson gson, boolean journaled) {
+        this(gson, journaled, true);
     }
 
-    public void addTask(Task task) {
-        tasks.add(task);
-        saveTasks();
+    private TaskManager(Gson gson, boolean journaled, boolean loadNow) {
+        this.store = StorageBackend.configured(gson).openTasks(journaled);
+        counted = new WeakReference<>(this);
+        if (loadNow) {
+            reindex(loadTasks(batch -> {}, false)); // Categories are read as they are needed
+            updateOverdueTasks(); // Mark overdue tasks when loading
+            if (rewrite) {
+                saveTasks(); // Persist the newly assigned ids, or the tasks in their new layout
+            }
+            loaded.complete(null);
+        }
     }
 
-    public void updateTask(Task oldTask, String title, String description, String category, String priority, LocalDate deadline, Task.Status status) {
-        oldTask.setTitle(title);
-        oldTask.setDescription(description);
-        oldTask.setCategory(category);
-        oldTask.setPriority(priority);
-        oldTask.setDeadline(deadline);
-        oldTask.setStatus(status);
-        saveTasks();
+    // Creates a manager whose tasks are read later by loadInBackground(), so the window can open first
+    public static TaskManager deferred(Gson gson) {
+        return new TaskManager(gson, Boolean.parseBoolean(System.getProperty("taskly.journal", "true")), false);
     }
 
-    public void removeTask(Task taskToRemove) {
-        tasks.remove(taskToRemove);
-        saveTasks();
+    // Streams the tasks on a background thread. Batches are delivered on that thread as they are parsed;
+    // edits made before the returned future completes wait for the load to finish. A store that
+    // answers queries itself keeps its categories until they are needed, see getListedTasks().
+    public CompletableFuture<Void> loadInBackground(Consumer<List<Task>> onBatch) {
+        synchronized (this) {
+            loading = true;
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                List<Task> loadedTasks = loadTasks(onBatch, !store.answersQueries());
+                synchronized (this) {
+                    reindex(loadedTasks);
+                    loading = false;
+                    notifyAll();
+                    updateOverdueTasks(); // Mark overdue tasks when loading
+                    if (rewrite) {
+                        saveTasks(); // Persist the newly assigned ids, or the tasks in their new layout
+                    }
+                }
+                loaded.complete(null);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    loading = false;
+                    notifyAll();
+                }
+                loaded.completeExceptionally(e);
+            }
+        }, "taskly-loader");
+        loader.setDaemon(true);
+        loader.start();
+        return loaded;
     }
 
-    public List<Task> searchTasks(String query, String priorityFilter, String categoryFilter) {
-        List<Task> filteredTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            boolean nameMatch = query == null || query.isEmpty() || task.getTitle().toLowerCase().contains(query);
-            boolean priorityMatch = priorityFilter == null || priorityFilter.isEmpty() || task.getPriority().equals(priorityFilter);
-            boolean categoryMatch = categoryFilter == null || categoryFilter.isEmpty() || task.getCategory().equals(categoryFilter);
+    public CompletableFuture<Void> whenLoaded() {
+        return loaded;
+    }
 
-            if (nameMatch && priorityMatch && categoryMatch) {
-                filteredTasks.add(task);
+    // Caller holds the lock
+    private void awaitLoaded() {
+        while (loading) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
-        return filteredTasks;
     }
 
-    public void updateOverdueTasks() {
+    // Detached copies of all tasks, in insertion order. Mutations go through the methods below.
+    public synchronized List<Task> getTasks() {
+        loadAll();
+        return records.view().toTasks();
+    }
+
+    /**
+     * The tasks the window lists: every task, except when the store answers queries itself (see
+     * {@link TaskStore#answersQueries()}). Then only the categories read so far are listed, and
+     * filters, searches and edits read more; each read ends with a reload event.
+     */
+    public synchronized List<Task> getListedTasks() {
+        if (!store.answersQueries()) {
+            loadAll();
+        }
+        return records.view().toTasks();
+    }
+
+    // A detached copy of the task, or null
+    public synchronized Task getTaskById(long id) {
+        loadHolding(id);
+        return records.view().task(id);
+    }
+
+    // Reads the category holding the task if it is still in the store, e.g. found by a search; caller holds the lock
+    private boolean loadHolding(long id) {
+        if (!records.view().contains(id)) {
+            loadStored(store.unloadedHolding(List.of(id))); // Ids say nothing about the category
+        }
+        return records.view().contains(id);
+    }
+
+    // The tasks with these ids that exist, keyed by id; those not in memory yet are looked up in the store together
+    public synchronized Map<Long, Task> getTasksById(Collection<Long> ids) {
+        List<Long> missing = new ArrayList<>();
+        for (long id : ids) {
+            if (!records.view().contains(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            loadStored(store.unloadedHolding(missing));
+        }
+        TaskSnapshot current = records.view();
+        Map<Long, Task> found = new HashMap<>();
+        for (long id : ids) {
+            Task task = current.task(id);
+            if (task != null) {
+                found.put(id, task);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gives the tasks as they were after the last completed change, without locking. The snapshot is
+     * immutable, so it can be read at leisure on any thread; call again to see later changes. Edits
+     * made inside a {@link #beginBatch() batch} are published together when the batch ends. If the
+     * store reads categories as they are needed, it holds those read so far; {@link #getTasks()}
+     * reads the rest.
+     */
+    public TaskSnapshot snapshot() {
+        return snapshot;
+    }
+
+    // Assigns the task a new id and stores its fields; the object itself is not kept
+    public synchronized void addTask(Task task) {
+        awaitLoaded();
+        loadCategory(task.getCategory());
+        task.setId(nextId++);
+        Task added = new Task(task); // Listeners get a copy the caller cannot change
+        indexTask(added);
+        textIndex.add(added);
+        notifyListeners(listener -> listener.added(added));
+        persist();
+    }
+
+    public synchronized void updateTask(Task oldTask, String title, String description, String category, String priority, LocalDate deadline, Task.Status status) {
+        updateTask(oldTask.getId(), title, description, category, priority, deadline, status);
+    }
+
+    public synchronized boolean updateTask(long id, String title, String description, String category, String priority, LocalDate deadline, Task.Status status) {
+        awaitLoaded();
+        if (!loadHolding(id)) {
+            return false;
+        }
+        loadCategory(category); // The task may move to a category that is not in memory yet
+        Task old = records.view().task(id);
+        Task task = new Task(old);
+        task.setTitle(title);
+        task.setDescription(description);
+        task.setCategory(category);
+        task.setPriority(priority);
+        task.setDeadline(deadline);
+        task.setStatus(status);
+        replace(old, task);
+        persist();
+        return true;
+    }
+
+    public synchronized void removeTask(Task taskToRemove) {
+        removeTask(taskToRemove.getId());
+    }
+
+    public synchronized boolean removeTask(long id) {
+        awaitLoaded();
+        loadHolding(id);
+        Task removed = records.view().task(id);
+        if (removed == null) {
+            return false;
+        }
+        drop(removed);
+        textIndex.remove(removed);
+        persist();
+        return true;
+    }
+
+    public synchronized void renameCategory(String oldName, String newName) {
+        awaitLoaded();
+        if (CategoryManager.symbols().rename(oldName, newName)) {
+            // Tasks hold the category's id, so they already carry the new name; only the views need refreshing
+            // Tasks still in the store are renamed there by the next write, without reading them
+            notifyRenamed(select(categoryId(newName), TaskIndex.ANY, TaskIndex.ANY));
+        } else {
+            // The new name is already in use: move the tasks over to it one by one
+            loadCategory(oldName);
+            loadCategory(newName);
+            for (Task task : lookup(select(categoryId(oldName), TaskIndex.ANY, TaskIndex.ANY))) {
+                Task moved = new Task(task);
+                moved.setCategory(newName);
+                replace(task, moved);
+            }
+        }
+        persist(TaskJournal.Entry.rename(TaskJournal.Op.RENAME_CATEGORY, oldName, newName));
+    }
+
+    public synchronized void deleteCategory(String category) {
+        awaitLoaded();
+        List<Task> removed = lookup(select(categoryId(category), TaskIndex.ANY, TaskIndex.ANY));
+        for (Task task : removed) {
+            drop(task);
+        }
+        textIndex.removeAll(removed);
+        store.categoryDeleted(CategoryManager.symbols().idOf(category)); // Its tasks in the store are never read
+        persist(TaskJournal.Entry.rename(TaskJournal.Op.DELETE_CATEGORY, category, null));
+    }
+
+    // Also used when a priority is deleted: its tasks are moved over to "Default"
+    public synchronized void renamePriority(String oldName, String newName) {
+        awaitLoaded();
+        loadStored(store.unloadedWith(oldName, null)); // Every task with the priority is rewritten
+        if (PriorityManager.symbols().rename(oldName, newName)) {
+            notifyRenamed(select(TaskIndex.ANY, priorityId(newName), TaskIndex.ANY));
+        } else {
+            for (Task task : lookup(select(TaskIndex.ANY, priorityId(oldName), TaskIndex.ANY))) {
+                Task moved = new Task(task);
+                moved.setPriority(newName);
+                replace(task, moved);
+            }
+        }
+        persist(TaskJournal.Entry.rename(TaskJournal.Op.RENAME_PRIORITY, oldName, newName));
+    }
+
+    // Caller holds the lock
+    private void notifyRenamed(long[] ids) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (Task task : lookup(ids)) {
+            notifyListeners(listener -> listener.updated(task));
+        }
+    }
+
+    /**
+     * Searches titles and descriptions through the word index.
+     *
+     * @param query          Words that must all occur in the title or description; each may be the start
+     *                       of a longer word. Blank matches every task.
+     * @param priorityFilter Priority the tasks must have, or null/empty for any.
+     * @param categoryFilter Category the tasks must have, or null/empty for any.
+     * @return The matching tasks, best match first (whole title words, then title prefixes, then
+     *         description matches). Without query words, the filtered tasks in insertion order.
+     */
+    public List<Task> searchRanked(String query, String priorityFilter, String categoryFilter) {
+        return searchRanked(query, priorityFilter, categoryFilter, Integer.MAX_VALUE, () -> false);
+    }
+
+    /**
+     * Same as {@link #searchRanked(String, String, String)}, returning only the first results.
+     * Queries with words run on the latest {@link #snapshot()} and its word index, without this
+     * manager's lock; it is only taken while the store searches the tasks it still holds, which
+     * returns at most that many rows and reads no category.
+     *
+     * @param limit     The most tasks to return.
+     * @param cancelled Polled while the matches are ranked and read, e.g. to give up on a query
+     *                  that newer input superseded.
+     * @throws CancellationException once {@code cancelled} returns true.
+     */
+    public List<Task> searchRanked(String query, String priorityFilter, String categoryFilter, int limit, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        String priority = priorityFilter == null || priorityFilter.isEmpty() ? null : priorityFilter;
+        String category = categoryFilter == null || categoryFilter.isEmpty() ? null : categoryFilter;
+        List<String> words = TextIndex.tokenize(query);
+        List<Task> found;
+        if (!words.isEmpty()) {
+            found = searchWords(query, words, category, priority, limit, cancelled);
+        } else {
+            synchronized (this) {
+                if (priority != null || category != null) {
+                    found = filtered(category, priority, null, limit);
+                } else {
+                    loadAll();
+                    List<Task> all = records.view().toTasks();
+                    found = all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+                }
+            }
+        }
+        SEARCH_TIME.recordSince(start);
+        return found;
+    }
+
+    /**
+     * The word index's ranking of the tasks in a snapshot, merged with the store's ranking of the
+     * tasks still there; the two rank alike, so the merge compares scores.
+     */
+    private List<Task> searchWords(String query, List<String> words, String category, String priority, int limit, BooleanSupplier cancelled) {
+        TaskSnapshot current = snapshot;
+        List<Task> stored = List.of();
+        if (partial) {
+            synchronized (this) {
+                stored = store.searchUnloaded(words, category, priority, limit);
+                if (stored == null) { // The store cannot search: read what may match
+                    if (category != null) {
+                        loadCategory(category);
+                    } else {
+                        loadAll();
+                    }
+                    stored = List.of();
+                }
+                current = snapshot; // Holds exactly the tasks the store did not search
+            }
+        }
+        int categoryId = category == null ? TaskIndex.ANY : categoryId(category);
+        int priorityId = priority == null ? TaskIndex.ANY : priorityId(priority);
+        TextIndex.Hits hits = current.words().hits(query, cancelled);
+        List<Task> found = new ArrayList<>(Math.min(limit, hits.ids.length + stored.size()));
+        int next = 0; // the first stored task not taken yet
+        int nextScore = next < stored.size() ? score(words, stored.get(next)) : 0;
+        for (int i = 0; i < hits.ids.length && found.size() < limit; i++) {
+            if (i % 1024 == 1023) {
+                TextIndex.checkCancelled(cancelled);
+            }
+            long id = hits.ids[i];
+            Task task = current.task(id, categoryId, priorityId);
+            if (task == null) {
+                continue;
+            }
+            while (next < stored.size() && found.size() < limit
+                    && (nextScore > hits.scores[i] || (nextScore == hits.scores[i] && stored.get(next).getId() < id))) {
+                found.add(stored.get(next++));
+                nextScore = next < stored.size() ? score(words, stored.get(next)) : 0;
+            }
+            if (found.size() < limit) {
+                found.add(task);
+            }
+        }
+        while (next < stored.size() && found.size() < limit) {
+            found.add(stored.get(next++));
+        }
+        return found;
+    }
+
+    private static int score(List<String> words, Task task) {
+        return TextIndex.score(words, task.getTitle(), task.getDescription());
+    }
+
+    /**
+     * The tasks matching every given filter, in insertion order: those in memory from the indexes,
+     * and those still in the store as rows it reads for this call alone. Caller holds the lock.
+     *
+     * @param category The category, or {@code null} for any.
+     * @param priority The priority, or {@code null} for any.
+     * @param status   The status, or {@code null} for any.
+     */
+    private List<Task> filtered(String category, String priority, Task.Status status, int limit) {
+        List<Task> stored = partial ? store.queryUnloaded(category, priority, status, limit) : List.of();
+        if (stored == null) { // The store cannot filter: read the categories that may hold a match
+            if (category != null) {
+                loadCategory(category);
+            } else {
+                loadStored(store.unloadedWith(priority, status));
+            }
+            stored = List.of();
+        }
+        long[] ids = select(category == null ? TaskIndex.ANY : categoryId(category), priority == null ? TaskIndex.ANY : priorityId(priority),
+                status == null ? TaskIndex.ANY : statusOrdinal(status));
+        List<Task> memory = lookup(ids.length > limit ? Arrays.copyOf(ids, limit) : ids);
+        return merge(memory, stored, Comparator.comparingLong(Task::getId), limit);
+    }
+
+    // The first tasks of two lists sorted alike, in that order
+    private static List<Task> merge(List<Task> a, List<Task> b, Comparator<Task> order, int limit) {
+        if (b.isEmpty()) {
+            return a;
+        }
+        List<Task> merged = new ArrayList<>(Math.min(limit, a.size() + b.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < a.size() || j < b.size())) {
+            if (j == b.size() || (i < a.size() && order.compare(a.get(i), b.get(j)) <= 0)) {
+                merged.add(a.get(i++));
+            } else {
+                merged.add(b.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    // Null is the tasks without a category
+    public synchronized List<Task> getTasksInCategory(String category) {
+        if (category == null) {
+            loadCategory(null);
+            return lookup(select(SymbolTable.NONE, TaskIndex.ANY, TaskIndex.ANY));
+        }
+        return filtered(category, null, null, Integer.MAX_VALUE);
+    }
+
+    public synchronized List<Task> getTasksWithPriority(String priority) {
+        return filtered(null, priority, null, Integer.MAX_VALUE);
+    }
+
+    public synchronized List<Task> getTasksWithStatus(Task.Status status) {
+        return filtered(null, null, status, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Counts the tasks matching every given filter. Tasks the store has not been asked for yet are
+     * counted by the store where it can, without reading them.
+     *
+     * @param category The category, or {@code null} for any.
+     * @param priority The priority, or {@code null} for any.
+     * @param status   The status, or {@code null} for any.
+     */
+    public synchronized long countTasks(String category, String priority, Task.Status status) {
+        awaitLoaded();
+        long stored = store.countUnloaded(category, priority, status);
+        if (stored < 0) {
+            if (category != null) {
+                loadCategory(category);
+            } else {
+                loadStored(store.unloadedWith(priority, status));
+            }
+            stored = store.countUnloaded(category, priority, status);
+            if (stored < 0) {
+                loadAll();
+                stored = 0;
+            }
+        }
+        if (category == null && priority == null && status == null) {
+            return stored + records.view().size();
+        }
+        int categoryId = category == null ? TaskIndex.ANY : categoryId(category);
+        int priorityId = priority == null ? TaskIndex.ANY : priorityId(priority);
+        if (categoryId == UNKNOWN || priorityId == UNKNOWN) {
+            return stored;
+        }
+        return stored + index.count(categoryId, priorityId, status == null ? TaskIndex.ANY : statusOrdinal(status));
+    }
+
+    // Tasks with a deadline in [from, to); either bound may be null. Ordered by deadline, then id.
+    public synchronized List<Task> getTasksDueBetween(LocalDate from, LocalDate to) {
+        List<Task> stored = partial ? store.queryUnloadedDue(from, to, Integer.MAX_VALUE) : List.of();
+        if (stored == null) {
+            loadAll();
+            stored = List.of();
+        }
+        List<Task> memory = lookup(index.dueBetween(from == null ? Integer.MIN_VALUE + 1 : (int) from.toEpochDay(),
+                to == null ? Integer.MAX_VALUE : (int) to.toEpochDay()));
+        return merge(memory, stored, Comparator.comparing(Task::getDeadline).thenComparingLong(Task::getId), Integer.MAX_VALUE);
+    }
+
+    // Receives every later add, update and remove, one task at a time
+    public void addListener(StoreListener<Task> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(StoreListener<Task> listener) {
+        listeners.remove(listener);
+    }
+
+    // Counters for the summary panel; subscribe with TaskStatistics.addListener()
+    public TaskStatistics getStatistics() {
+        if (partial) {
+            synchronized (this) {
+                loadAll(); // The counters cover every task
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * The summary totals over every task. Tasks still in the store are counted there where it can,
+     * without reading them; otherwise they are read, as for {@link #getStatistics()}.
+     */
+    public synchronized TaskStatistics.Counts getTotals() {
+        TaskStatistics.Counts stored = partial ? store.summarizeUnloaded(statistics.getDay()) : null;
+        if (stored == null) {
+            loadAll();
+            return statistics.getTotals();
+        }
+        return statistics.getTotals().plus(stored);
+    }
+
+    // Notified when the counters change, without reading the tasks getStatistics() would read
+    public void addStatisticsListener(TaskStatistics.Listener listener) {
+        statistics.addListener(listener);
+    }
+
+    // Caller holds the lock. Call unindexTask() with the old fields before storing new ones with indexTask().
+    private void indexTask(Task task) {
+        statistics.add(task);
+        index.add(task);
+        records.put(task);
+        changes.written(task);
+    }
+
+    private void unindexTask(Task task) {
+        statistics.remove(task);
+        index.remove(task);
+        changes.touched(task);
+    }
+
+    // Caller holds the lock. Stores a task's new fields in place of the old ones and tells the listeners.
+    private void replace(Task old, Task updated) {
+        unindexTask(old);
+        indexTask(updated);
+        if (!Objects.equals(old.getTitle(), updated.getTitle()) || !Objects.equals(old.getDescription(), updated.getDescription())) {
+            textIndex.update(old, updated);
+        }
+        notifyListeners(listener -> listener.updated(updated));
+    }
+
+    // Caller holds the lock and removes the task from the word index, where many are removed at once
+    private void drop(Task task) {
+        unindexTask(task);
+        changes.removed(task);
+        records.remove(task.getId());
+        notifyListeners(listener -> listener.removed(task));
+    }
+
+    // Rebuilds the columns and every index from a complete set of tasks sorted by id; caller holds the lock
+    private void reindex(List<Task> all) {
+        records.reset(all);
+        textIndex.rebuild(all);
+        publish();
+        index.rebuild(snapshot);
+        statistics.rebuild(snapshot, LocalDate.now());
+        statistics.fireChanged();
+        notifyListeners(StoreListener::reloaded);
+    }
+
+    // Caller holds the lock, so listeners see the changes in the order they were made
+    private void notifyListeners(Consumer<StoreListener<Task>> event) {
+        for (StoreListener<Task> listener : listeners) {
+            event.accept(listener);
+        }
+    }
+
+    /**
+     * Reads categories the store has not handed over yet and adds their tasks to the columns and
+     * indexes. Caller holds the lock. Does nothing while the background load runs, since that load
+     * reads every task.
+     */
+    private void loadStored(Collection<Integer> categories) {
+        if (!partial || loading || categories.isEmpty()) {
+            return;
+        }
+        List<Task> loadedTasks = new ArrayList<>();
+        store.loadCategories(categories, loadedTasks::addAll);
+        partial = !store.unloadedCategories().isEmpty();
+        if (loadedTasks.isEmpty()) {
+            return;
+        }
+        TaskSnapshot current = records.view();
+        Set<Long> seen = new HashSet<>();
+        List<Task> clashing = new ArrayList<>();
+        for (Task task : loadedTasks) {
+            if (task.getId() <= 0 || current.contains(task.getId()) || !seen.add(task.getId())) {
+                clashing.add(task); // A clash between categories; the task is written again with a new id
+            } else {
+                nextId = Math.max(nextId, task.getId() + 1);
+            }
+        }
+        for (Task task : clashing) {
+            task.setId(nextId++);
+        }
+        addAll(sortedById(loadedTasks));
+        for (Task task : clashing) {
+            changes.written(task);
+        }
+        publish();
+        statistics.fireChanged();
+        notifyListeners(StoreListener::reloaded);
+    }
+
+    // Adds tasks with new ids, in any order of ids, to the columns and every index; caller holds the lock
+    private void addAll(List<Task> sorted) {
+        records.merge(sorted);
+        textIndex.addAll(sorted);
+        for (Task task : sorted) {
+            statistics.add(task);
+            index.add(task);
+        }
+    }
+
+    // Caller holds the lock
+    private void loadCategory(String category) {
+        if (partial) {
+            int id = CategoryManager.symbols().idOf(category);
+            if (category == null || id != SymbolTable.NONE) {
+                loadStored(List.of(id));
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void loadAll() {
+        if (partial) {
+            loadStored(store.unloadedCategories());
+        }
+    }
+
+    // Ids are handed out in increasing order, so this is insertion order. Of tasks with the same id,
+    // the last one is kept.
+    private static List<Task> sortedById(Collection<Task> tasks) {
+        Task[] sorted = tasks.toArray(new Task[0]);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i - 1].getId() >= sorted[i].getId()) {
+                Arrays.sort(sorted, Comparator.comparingLong(Task::getId)); // Stable, so equal ids keep their order
+                break;
+            }
+        }
+        List<Task> list = new ArrayList<>(sorted.length);
+        for (int i = 0; i < sorted.length; i++) {
+            if (i + 1 == sorted.length || sorted[i].getId() != sorted[i + 1].getId()) {
+                list.add(sorted[i]);
+            }
+        }
+        return list;
+    }
+
+    // Builds detached tasks for the ids, in the order given; caller holds the lock
+    private List<Task> lookup(long[] ids) {
+        return records.view().tasks(ids);
+    }
+
+    /**
+     * Ids of the tasks in memory matching every filter, in insertion order, from the indexes.
+     * Caller holds the lock.
+     */
+    private long[] select(int category, int priority, int status) {
+        if (category == UNKNOWN || priority == UNKNOWN) {
+            return new long[0];
+        }
+        return index.select(category, priority, status);
+    }
+
+    // The symbol id to filter on; null is the tasks without a category
+    private static int categoryId(String category) {
+        int id = CategoryManager.symbols().idOf(category);
+        return category != null && id == SymbolTable.NONE ? UNKNOWN : id;
+    }
+
+    private static int priorityId(String priority) {
+        int id = PriorityManager.symbols().idOf(priority);
+        return priority != null && id == SymbolTable.NONE ? UNKNOWN : id;
+    }
+
+    private static int statusOrdinal(Task.Status status) {
+        return status == null ? TaskColumns.NO_STATUS : status.ordinal();
+    }
+
+    /**
+     * Marks as {@link Task.Status#DELAYED} every open task whose deadline is before today. The open
+     * overdue tasks are read off a deadline index of the tasks that can still become overdue, so
+     * nothing is visited or written when there are none.
+     * Runs after every load and at local midnight through {@link OverdueMonitor}.
+     *
+     * @return The tasks that were marked, in deadline order.
+     */
+    public synchronized List<Task> updateOverdueTasks() {
+        awaitLoaded();
+        long start = System.nanoTime();
         LocalDate today = LocalDate.now();
-        for (Task task : tasks) {
-            if (task.getStatus() != Task.Status.COMPLETED && task.getDeadline() != null && task.getDeadline().isBefore(today)) {
-                task.setStatus(Task.Status.DELAYED);
+        loadStored(store.unloadedDueBefore(today)); // Only the categories that have something to mark
+        if (!today.equals(statistics.getDay())) {
+            // The date-based counters shift with the day
+            statistics.rebuild(records.view(), today);
+            statistics.fireChanged();
+        }
+        List<Task> overdue = new ArrayList<>();
+        for (Task task : lookup(index.openDueBefore((int) today.toEpochDay()))) {
+            Task delayed = new Task(task);
+            delayed.setStatus(Task.Status.DELAYED);
+            replace(task, delayed);
+            overdue.add(delayed);
+        }
+        if (!overdue.isEmpty()) {
+            persist();
+        }
+        SWEEP_TIME.recordSince(start);
+        return overdue;
+    }
+
+    // Requests a write of every task in memory, e.g. a full snapshot of tasks.json, which is also
+    // the journal's compaction step. The write itself happens on the persistence writer thread.
+    public synchronized void saveTasks() {
+        awaitLoaded(); // Never let a half-loaded list overwrite the snapshot
+        changes.writeAll(); // Categories that were never read are left as they are
+        PersistenceService.getInstance().schedule(this, "tasks", this::writeChanges);
+    }
+
+    /**
+     * Starts a batch of mutations, e.g. a bulk import. Until the matching {@link #endBatch()} nothing is
+     * published or written; the batch then reaches the store as one write.
+     * Batches may nest. Listeners are still notified of every change as it happens.
+     */
+    public synchronized void beginBatch() {
+        awaitLoaded();
+        batchDepth++;
+    }
+
+    public synchronized void endBatch() {
+        if (batchDepth > 0 && --batchDepth == 0) {
+            if (batchDirty) {
+                batchDirty = false;
+                publish();
+            }
+            if (!changes.isEmpty()) {
+                PersistenceService.getInstance().schedule(this, "tasks", this::writeChanges);
             }
         }
-        saveTasks();
     }
 
-    public void saveTasks() {
-        try (Writer writer = new FileWriter(FILE_PATH)) {
-            gson.toJson(tasks, writer);
-            System.out.println("Tasks saved to " + FILE_PATH);
+    // Caller holds the lock
+    private void publish() {
+        snapshot = records.publish(snapshot.getVersion() + 1, textIndex.publish());
+    }
+
+    // A rename or deleted category, which also reaches tasks that are still in the store
+    private synchronized void persist(TaskJournal.Entry rename) {
+        changes.renamed(rename);
+        persist();
+    }
+
+    // Every mutation ends here exactly once. Edits of single tasks were already recorded by
+    // indexTask() and unindexTask().
+    private synchronized void persist() {
+        statistics.fireChanged();
+        if (batchDepth > 0) {
+            batchDirty = true; // endBatch() publishes and writes this change with the rest of the batch
+            return;
+        }
+        publish();
+        PersistenceService.getInstance().schedule(this, "tasks", this::writeChanges);
+    }
+
+    /**
+     * Has the writer thread check whether another program changed the stored tasks, e.g. a sync
+     * tool replacing tasks.json, and merge the change in; see {@link DataWatcher}. Edits that were
+     * not written yet are written right after.
+     */
+    public void checkForOutsideChanges() {
+        PersistenceService.getInstance().schedule(this, "tasks", this::writeChanges);
+    }
+
+    // Runs on the writer thread: hands the edits made since the last write to the store, with the
+    // version that holds exactly those edits
+    private void writeChanges() {
+        if (loaded.isDone()) {
+            mergeOutsideChanges(); // First, or the write would replace them
+        }
+        TaskChanges taken;
+        synchronized (this) {
+            if (batchDepth > 0 || changes.isEmpty()) {
+                return; // endBatch() schedules the write again
+            }
+            taken = changes.seal(snapshot, nextId);
+            changes = new TaskChanges();
+        }
+        try {
+            store.write(taken);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private List<Task> loadTasks() {
-        try (Reader reader = new FileReader(FILE_PATH)) {
-            Type taskListType = new TypeToken<ArrayList<Task>>() {}.getType();
-            List<Task> loadedTasks = gson.fromJson(reader, taskListType);
-            if (loadedTasks != null) {
-                System.out.println("Tasks loaded from " + FILE_PATH);
-                return loadedTasks;
-            }
+    // Runs on the writer thread, so no write of this manager's can overlap the read
+    private void mergeOutsideChanges() {
+        List<Task> stored;
+        try {
+            stored = store.reload();
         } catch (IOException e) {
-            System.out.println("No tasks file found or error reading " + FILE_PATH + ", starting with empty tasks.");
+            System.out.println("Could not read the tasks changed outside the app: " + e.getMessage());
+            return; // Tried again on the next change or write
+        }
+        if (stored != null) {
+            merge(stored);
         }
-        return new ArrayList<>();
     }
 
-    public void setTasks(List<Task> tasks) {
-        this.tasks = tasks;
+    /**
+     * Brings the tasks in memory in line with the stored ones, one task at a time: listeners get an
+     * add, update or remove for each task that differs instead of a reload. A task edited or removed
+     * here since the last write keeps that edit, which the next write stores.
+     */
+    private synchronized void merge(List<Task> stored) {
+        Map<Long, Task> incoming = new LinkedHashMap<>();
+        List<Task> withoutId = new ArrayList<>();
+        for (Task task : stored) {
+            if (task.getId() <= 0 || incoming.containsKey(task.getId())) {
+                withoutId.add(task);
+            } else {
+                incoming.put(task.getId(), task);
+            }
+        }
+        int merged = 0;
+        TaskChanges pending = changes;
+        changes = new TaskChanges(); // The store already holds what the merge changes
+        try {
+            List<Task> added = new ArrayList<>();
+            List<Task> removed = new ArrayList<>();
+            for (Task task : records.view().toTasks()) {
+                if (pending.isPending(task.getId())) {
+                    continue;
+                }
+                Task theirs = incoming.get(task.getId());
+                if (theirs == null) {
+                    drop(task);
+                    removed.add(task);
+                    merged++;
+                } else if (!theirs.equals(task)) {
+                    replace(task, theirs);
+                    merged++;
+                }
+            }
+            textIndex.removeAll(removed);
+            for (Task theirs : incoming.values()) {
+                if (!records.view().contains(theirs.getId()) && !pending.isPending(theirs.getId())) {
+                    added.add(theirs);
+                }
+            }
+            addMerged(added);
+            merged += added.size();
+        } finally {
+            changes = pending; // Edits made here before the merge still have to be written
+        }
+        if (!withoutId.isEmpty()) {
+            for (Task task : withoutId) {
+                task.setId(nextId++);
+            }
+            addMerged(withoutId);
+            merged += withoutId.size();
+            changes.writeAll(); // The stored tasks have no id yet: rewrite them all, as a load does, so the ids stick
+        }
+        if (merged == 0) {
+            return;
+        }
+        statistics.fireChanged();
+        if (batchDepth > 0) {
+            batchDirty = true;
+        } else {
+            publish();
+        }
+        OUTSIDE_CHANGES.add(merged);
+        updateOverdueTasks(); // The other program may not have marked them
     }
 
-    public void showDelayedTasksPopup() {
-        StringBuilder delayedTasks = new StringBuilder();
+    // Adds tasks from the store, whose ids may lie below the last one; caller holds the lock
+    private void addMerged(List<Task> added) {
+        List<Task> sorted = sortedById(added);
+        for (Task task : sorted) {
+            nextId = Math.max(nextId, task.getId() + 1);
+            changes.written(task);
+        }
+        addAll(sorted);
+        for (Task task : sorted) {
+            notifyListeners(listener -> listener.added(task));
+        }
+    }
+
+    // Caller is the constructor or the loader thread; nothing else touches nextId until the load completes
+    private List<Task> loadTasks(Consumer<List<Task>> onBatch, boolean all) {
+        long start = System.nanoTime();
+        TaskStore.Loaded loaded = store.load(onBatch, all);
+        nextId = loaded.getNextId();
+        rewrite = loaded.needsRewrite();
+        partial = !store.unloadedCategories().isEmpty();
+        List<Task> result = sortedById(loaded.getTasks());
+        LOAD_TIME.recordSince(start);
+        return result;
+    }
+
+    // Replaces every task; tasks without an id are given one
+    public synchronized void setTasks(List<Task> tasks) {
+        Set<Long> ids = new HashSet<>();
         for (Task task : tasks) {
-            if (task.getStatus() == Task.Status.DELAYED) {
-                delayedTasks.append(task.getTitle()).append(" (Due: ").append(task.getDeadline()).append(")\n");
+            if (task.getId() == 0 || !ids.add(task.getId())) {
+                task.setId(nextId++);
+                ids.add(task.getId());
             }
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        for (int category : store.unloadedCategories()) {
+            store.categoryDeleted(category); // Replaced without being read
+        }
+        partial = false;
+        reindex(sortedById(tasks));
+        changes.replaceAll();
+        PersistenceService.getInstance().schedule(this, "tasks", this::writeChanges);
+    }
+
+    public void showDelayedTasksPopup() {
+        StringBuilder delayedTasks = new StringBuilder();
+        for (Task task : getTasksWithStatus(Task.Status.DELAYED)) {
+            delayedTasks.append(task.getTitle()).append(" (Due: ").append(task.getDeadline()).append(")\n");
         }
 
         if (delayedTasks.length() > 0) {
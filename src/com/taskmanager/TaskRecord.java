@@ -0,0 +1,66 @@
+package com.taskmanager;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable copy of a {@link Task} as it was when a {@link TaskSnapshot} was published, read out of
+ * the snapshot's columns on demand. Safe to share between threads. The category and priority are
+ * held as symbol ids like in Task, so their names are always the current ones, even when they were
+ * renamed after the snapshot was taken.
+ */
+public final class TaskRecord {
+    private final long id;
+    private final String title;
+    private final String description;
+    private final int categoryId;
+    private final int priorityId;
+    private final LocalDate deadline;
+    private final Task.Status status;
+
+    TaskRecord(long id, String title, String description, int categoryId, int priorityId, LocalDate deadline, Task.Status status) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.categoryId = categoryId;
+        this.priorityId = priorityId;
+        this.deadline = deadline;
+        this.status = status;
+    }
+
+    public long getId() { return id; }
+
+    public String getTitle() { return title; }
+
+    public String getDescription() { return description; }
+
+    public String getCategory() { return CategoryManager.symbols().name(categoryId); }
+
+    public String getPriority() { return PriorityManager.symbols().name(priorityId); }
+
+    public LocalDate getDeadline() { return deadline; }
+
+    public Task.Status getStatus() { return status; }
+
+    int getCategoryId() { return categoryId; }
+
+    int getPriorityId() { return priorityId; }
+
+    // The fields a task has right now, e.g. when a change is handed to another thread
+    static TaskRecord of(Task task) {
+        return new TaskRecord(task.getId(), task.getTitle(), task.getDescription(), task.getCategoryId(),
+                task.getPriorityId(), task.getDeadline(), task.getStatus());
+    }
+
+    /**
+     * @return A new, detached mutable task with the same id and fields, for code written against {@link Task}.
+     */
+    public Task toTask() {
+        return new Task(id, title, description, categoryId, priorityId, deadline, status);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [%s] - %s (Deadline: %s, Priority: %s)",
+                title, getCategory(), status, deadline, getPriority());
+    }
+}
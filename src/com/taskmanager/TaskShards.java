@@ -0,0 +1,395 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Sharded on-disk layout of the task store, chosen with {@code -Dtaskly.storage=sharded}: one
+ * tasks file per category under {@code medialab/tasks/}, in the format of tasks.json, plus a
+ * {@code manifest.json} naming each category's file. The manifest also keeps the next task id and,
+ * per shard, its size and the earliest deadline an overdue sweep would act on, so a shard is only
+ * read once something needs its tasks.
+ * <p>
+ * Shard files are named by number, not by category, so renaming a category only rewrites the
+ * manifest; the category of the tasks in a shard is always taken from the manifest. A write
+ * rewrites the shards whose categories changed and the manifest, and a deleted category's file is
+ * simply removed. Without a manifest, tasks.json and its journal are read once and written out
+ * as shards.
+ * <p>
+ * Another program may change the manifest or the shards, see {@link #reload()}. Shards not read
+ * yet are simply read as they are then.
+ */
+final class TaskShards implements TaskStore {
+    static final Path DIRECTORY = Paths.get("medialab", "tasks");
+    private static final Path MANIFEST = DIRECTORY.resolve("manifest.json");
+
+    // One shard as listed in manifest.json
+    private static class Shard {
+        String category; // null for the tasks without a category
+        String file;
+        int tasks;
+        LocalDate nextDue; // earliest deadline of an open task, or null
+        transient boolean loaded;
+
+        Shard copy() {
+            Shard copy = new Shard();
+            copy.category = category;
+            copy.file = file;
+            copy.tasks = tasks;
+            copy.nextDue = nextDue;
+            return copy;
+        }
+    }
+
+    private static class Manifest {
+        int version = 1;
+        long nextId = 1;
+        int nextFile = 1;
+        List<Shard> shards = new ArrayList<>();
+    }
+
+    // The ids and earliest open deadline of one category's tasks, gathered from a snapshot
+    private static final class Contents {
+        long[] ids = new long[16];
+        int size;
+        int nextDue = Integer.MAX_VALUE; // epoch day
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    private final Gson gson;
+    private final Map<Integer, Shard> shards = new HashMap<>(); // category symbol id -> shard
+    private final List<String> dropped = new ArrayList<>(); // files of deleted shards, removed on the next write
+    private long nextId = 1;
+    private int nextFile = 1;
+
+    static boolean isEnabled() {
+        return "sharded".equals(System.getProperty("taskly.storage", "single"));
+    }
+
+    /**
+     * Reads the manifest, if there is one. The shards themselves are read as they are needed.
+     */
+    TaskShards(Gson gson) {
+        this.gson = gson;
+        try {
+            Object seen = PersistenceService.fingerprint(MANIFEST);
+            Manifest manifest = readManifest();
+            PersistenceService.remember(MANIFEST, seen);
+            if (manifest != null) {
+                nextId = manifest.nextId;
+                nextFile = manifest.nextFile;
+                for (Shard shard : manifest.shards) {
+                    shards.put(CategoryManager.symbols().intern(shard.category), shard);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Not sharded yet
+        } catch (IOException | JsonParseException e) {
+            System.out.println("Cannot read " + MANIFEST + ": " + e.getMessage());
+        }
+    }
+
+    private Manifest readManifest() throws IOException {
+        try (Reader reader = Files.newBufferedReader(MANIFEST, StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Manifest.class);
+        }
+    }
+
+    @Override
+    public Loaded load(Consumer<List<Task>> onBatch, boolean all) {
+        if (!Files.exists(MANIFEST)) {
+            return JsonTaskStore.readForMigration(gson, onBatch); // Written out as shards by the first save
+        }
+        List<Task> loadedTasks = new ArrayList<>();
+        if (all) {
+            loadCategories(unloadedCategories(), batch -> {
+                loadedTasks.addAll(batch);
+                onBatch.accept(batch);
+            });
+        }
+        long next = nextId;
+        for (Task task : loadedTasks) {
+            next = Math.max(next, task.getId() + 1);
+        }
+        System.out.println("Tasks loaded from " + DIRECTORY + " (" + loadedTasks.size() + " of "
+                + (loadedTasks.size() + countUnloaded(null, null, null)) + " tasks read)");
+        return new Loaded(loadedTasks, next, false);
+    }
+
+    @Override
+    public synchronized List<Integer> unloadedCategories() {
+        List<Integer> unloaded = new ArrayList<>();
+        for (Map.Entry<Integer, Shard> entry : shards.entrySet()) {
+            if (!entry.getValue().loaded) {
+                unloaded.add(entry.getKey());
+            }
+        }
+        return unloaded;
+    }
+
+    @Override
+    public synchronized List<Integer> unloadedDueBefore(LocalDate day) {
+        List<Integer> due = new ArrayList<>();
+        for (Map.Entry<Integer, Shard> entry : shards.entrySet()) {
+            Shard shard = entry.getValue();
+            if (!shard.loaded && shard.nextDue != null && shard.nextDue.isBefore(day)) {
+                due.add(entry.getKey());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Reads categories' shards. Every task is given the category the manifest lists, which is its
+     * current name even if the category was renamed after the file was written.
+     */
+    @Override
+    public synchronized void loadCategories(Collection<Integer> categories, Consumer<List<Task>> onBatch) {
+        for (int category : categories) {
+            Shard shard = shards.get(category);
+            if (shard == null || shard.loaded) {
+                continue;
+            }
+            shard.loaded = true;
+            String name = CategoryManager.symbols().name(category);
+            try {
+                readShard(shard.file, name, onBatch);
+            } catch (IOException | JsonParseException e) {
+                System.out.println("Cannot read shard " + shard.file + " of category " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Gives every task the category's name and remembers the file as read
+    private void readShard(String file, String category, Consumer<List<Task>> onBatch) throws IOException {
+        Path path = DIRECTORY.resolve(file);
+        Object seen = PersistenceService.fingerprint(path);
+        TaskStreamLoader.load(path, gson, TaskStreamLoader.DEFAULT_BATCH_SIZE, batch -> {
+            for (Task task : batch) {
+                task.setCategory(category);
+            }
+            onBatch.accept(batch);
+        });
+        PersistenceService.remember(path, seen);
+    }
+
+    /**
+     * Reads the whole store again if another program changed the manifest or a shard this store has
+     * read; changes to shards not read yet are left for when they are needed. The manager merges
+     * every stored task, so after such a change every shard the new manifest lists is read and that
+     * manifest becomes the base of later writes. The files are read without this store's lock. A
+     * missing manifest is taken for one that is being replaced.
+     */
+    @Override
+    public List<Task> reload() throws IOException {
+        if (!Files.exists(MANIFEST) || !changedOutside()) {
+            return null;
+        }
+        Object seen = PersistenceService.fingerprint(MANIFEST);
+        Manifest manifest;
+        try {
+            manifest = readManifest();
+        } catch (JsonParseException e) {
+            throw new IOException("Cannot parse " + MANIFEST, e); // Probably still being written
+        }
+        if (manifest == null) {
+            throw new IOException(MANIFEST + " is empty");
+        }
+        List<Task> tasks = new ArrayList<>();
+        Map<Integer, Shard> read = new HashMap<>();
+        for (Shard shard : manifest.shards) {
+            int first = tasks.size();
+            try {
+                readShard(shard.file, shard.category, tasks::addAll);
+            } catch (JsonParseException e) {
+                throw new IOException("Cannot parse shard " + shard.file, e);
+            }
+            // The other program may not have kept the manifest's figures up to date
+            shard.tasks = tasks.size() - first;
+            shard.nextDue = nextDue(tasks.subList(first, tasks.size()));
+            shard.loaded = true;
+            read.put(CategoryManager.symbols().intern(shard.category), shard);
+        }
+        synchronized (this) {
+            shards.clear();
+            shards.putAll(read);
+            dropped.removeIf(file -> manifest.shards.stream().anyMatch(shard -> shard.file.equals(file)));
+            nextId = Math.max(nextId, manifest.nextId);
+            nextFile = Math.max(nextFile, manifest.nextFile);
+        }
+        PersistenceService.remember(MANIFEST, seen); // Only now, so a reload that failed is tried again
+        return tasks;
+    }
+
+    // The earliest deadline of an open task, as kept in the manifest
+    private static LocalDate nextDue(List<Task> tasks) {
+        LocalDate nextDue = null;
+        for (Task task : tasks) {
+            if (task.getDeadline() != null && task.getStatus() != Task.Status.COMPLETED && task.getStatus() != Task.Status.DELAYED
+                    && (nextDue == null || task.getDeadline().isBefore(nextDue))) {
+                nextDue = task.getDeadline();
+            }
+        }
+        return nextDue;
+    }
+
+    private synchronized boolean changedOutside() throws IOException {
+        if (!PersistenceService.isUnchanged(MANIFEST)) {
+            return true;
+        }
+        for (Shard shard : shards.values()) {
+            if (shard.loaded && !PersistenceService.isUnchanged(DIRECTORY.resolve(shard.file))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The manifest only knows the size of each shard, so only counts by category are answered
+    @Override
+    public synchronized long countUnloaded(String category, String priority, Task.Status status) {
+        long count = 0;
+        for (Map.Entry<Integer, Shard> entry : shards.entrySet()) {
+            Shard shard = entry.getValue();
+            if (shard.loaded || (category != null && !category.equals(CategoryManager.symbols().name(entry.getKey())))) {
+                continue;
+            }
+            if (priority != null || status != null) {
+                return -1;
+            }
+            count += shard.tasks;
+        }
+        return count;
+    }
+
+    // The file is removed on the next write, without reading it
+    @Override
+    public synchronized void categoryDeleted(int category) {
+        drop(category);
+    }
+
+    private void drop(int category) {
+        Shard shard = shards.remove(category);
+        if (shard != null) {
+            dropped.add(shard.file);
+        }
+    }
+
+    /**
+     * Rewrites the shards of the categories that changed, then the manifest, then removes the
+     * files of deleted shards. Shards whose category has no task left are deleted too. Every file
+     * is replaced atomically. The manifest is taken under this store's lock, the files are
+     * written outside of it.
+     */
+    @Override
+    public void write(TaskChanges changes) throws IOException {
+        TaskSnapshot snapshot = changes.getSnapshot();
+        Map<String, long[]> writes = new HashMap<>(); // shard file -> ids of its tasks
+        Manifest manifest = new Manifest();
+        List<String> deleted;
+        synchronized (this) {
+            Set<Integer> dirty = new HashSet<>(changes.getCategories());
+            if (changes.isFull()) {
+                for (Map.Entry<Integer, Shard> entry : shards.entrySet()) {
+                    if (entry.getValue().loaded) {
+                        dirty.add(entry.getKey());
+                    }
+                }
+            }
+            Map<Integer, Contents> contents = new HashMap<>();
+            if (changes.isFull() || !dirty.isEmpty()) { // A full write may find categories no shard holds yet
+                snapshot.forEachRow((id, category, priority, deadline, status) -> {
+                    if (!changes.isFull() && !dirty.contains(category)) {
+                        return;
+                    }
+                    Contents of = contents.computeIfAbsent(category, k -> new Contents());
+                    of.add(id);
+                    if (deadline != TaskColumns.NO_DEADLINE && status != Task.Status.COMPLETED.ordinal()
+                            && status != Task.Status.DELAYED.ordinal()) {
+                        of.nextDue = Math.min(of.nextDue, deadline);
+                    }
+                });
+                if (changes.isFull()) {
+                    dirty.addAll(contents.keySet());
+                }
+            }
+            for (int category : dirty) {
+                Contents of = contents.get(category);
+                if (of == null) {
+                    drop(category);
+                    continue;
+                }
+                Shard shard = shards.computeIfAbsent(category, k -> {
+                    Shard created = new Shard();
+                    created.file = "shard-" + nextFile++ + ".json";
+                    created.loaded = true;
+                    return created;
+                });
+                shard.tasks = of.size;
+                shard.nextDue = of.nextDue == Integer.MAX_VALUE ? null : LocalDate.ofEpochDay(of.nextDue);
+                writes.put(shard.file, Arrays.copyOf(of.ids, of.size)); // In id order, like the snapshot
+            }
+            for (Map.Entry<Integer, Shard> entry : shards.entrySet()) {
+                Shard shard = entry.getValue();
+                shard.category = CategoryManager.symbols().name(entry.getKey());
+                manifest.shards.add(shard.copy());
+            }
+            nextId = changes.getNextId();
+            manifest.nextId = nextId;
+            manifest.nextFile = nextFile;
+            deleted = new ArrayList<>(dropped);
+            dropped.clear();
+        }
+        Files.createDirectories(DIRECTORY);
+        for (Map.Entry<String, long[]> write : writes.entrySet()) {
+            writeShard(DIRECTORY.resolve(write.getKey()), write.getValue(), snapshot);
+        }
+        PersistenceService.writeAtomically(MANIFEST,
+                out -> out.write(gson.toJson(manifest).getBytes(StandardCharsets.UTF_8)));
+        for (String file : deleted) {
+            Files.deleteIfExists(DIRECTORY.resolve(file));
+        }
+    }
+
+    private void writeShard(Path path, long[] ids, TaskSnapshot snapshot) throws IOException {
+        PersistenceService.writeAtomically(path, out -> Compression.encode(out, "tasks", json -> {
+            JsonWriter writer = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8)));
+            writer.beginArray();
+            for (long id : ids) {
+                TaskRecord record = snapshot.get(id);
+                if (record != null) {
+                    gson.toJson(record.toTask(), Task.class, writer);
+                }
+            }
+            writer.endArray();
+            writer.flush();
+        }));
+    }
+}
@@ -0,0 +1,389 @@
+package com.taskmanager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable, point-in-time view of every task held by {@link TaskManager}, for readers on any
+ * thread. {@link TaskManager#snapshot()} returns the latest one without taking a lock; it never
+ * changes afterwards, however the tasks are edited, so a reader can take its time.
+ * <p>
+ * Tasks are stored column-wise in chunks of {@link TaskColumns}, sorted by id (ids are handed out
+ * in increasing order, so this is also insertion order). Looking up an id is a binary search, and
+ * {@link #forEachRow} sweeps the primitive columns without creating an object per task. Other
+ * reads materialize a {@link TaskRecord}. Each version also carries the word index as it was when
+ * the version was published, so searches need no lock either. The builder's columns are also
+ * TaskManager's own copy of the tasks; it builds a {@link Task} from a row only when one is asked
+ * for. Publishing a new version copies only the array of chunks and the chunks that were written
+ * to since the last version, so an edit costs O(n / 1024 + 1024) rather than a copy of every task.
+ * Removed tasks leave an empty row until enough of them have accumulated to pack the chunks again.
+ */
+public final class TaskSnapshot implements Iterable<TaskRecord> {
+    private static final int ROWS = TaskColumns.ROWS;
+
+    /**
+     * Receives the fixed-size fields of one task, see {@link #forEachRow}.
+     */
+    interface RowVisitor {
+        /**
+         * @param id       The task's id.
+         * @param category Symbol id of the category, or {@link SymbolTable#NONE}.
+         * @param priority Symbol id of the priority, or {@link SymbolTable#NONE}.
+         * @param deadline Epoch day of the deadline, or {@link TaskColumns#NO_DEADLINE}.
+         * @param status   Ordinal of the status, or {@link TaskColumns#NO_STATUS}.
+         */
+        void visit(long id, int category, int priority, int deadline, int status);
+    }
+
+    private final long version;
+    private final TaskColumns[] chunks;
+    private final long[] firstIds; // id of each chunk's first row, so finding the chunk reads one array
+    private final int length; // rows in use, including removed ones
+    private final int size; // tasks
+    private final TextIndex.Version words;
+
+    private TaskSnapshot(long version, TaskColumns[] chunks, long[] firstIds, int length, int size, TextIndex.Version words) {
+        this.version = version;
+        this.chunks = chunks;
+        this.firstIds = firstIds;
+        this.length = length;
+        this.size = size;
+        this.words = words;
+    }
+
+    static TaskSnapshot empty() {
+        return new TaskSnapshot(0, new TaskColumns[0], new long[0], 0, 0, TextIndex.Version.EMPTY);
+    }
+
+    // Increases with every change published by the TaskManager
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The words of the titles and descriptions in this version
+    TextIndex.Version words() {
+        return words;
+    }
+
+    /**
+     * @return The task with this id as it was in this version, or {@code null} if it did not exist.
+     */
+    public TaskRecord get(long id) {
+        int row = find(chunks, firstIds, length, id);
+        if (row < 0 || chunks[row / ROWS].isRemoved(row % ROWS)) {
+            return null;
+        }
+        return chunks[row / ROWS].record(row % ROWS);
+    }
+
+    // A new, detached task with the fields the task had in this version, or null
+    Task task(long id) {
+        int row = find(chunks, firstIds, length, id);
+        if (row < 0 || chunks[row / ROWS].isRemoved(row % ROWS)) {
+            return null;
+        }
+        return chunks[row / ROWS].task(row % ROWS);
+    }
+
+    /**
+     * A new, detached task if it exists in this version and has the category and priority.
+     *
+     * @param category Symbol id of the category, or {@link TaskIndex#ANY}.
+     * @param priority Symbol id of the priority, or {@link TaskIndex#ANY}.
+     */
+    Task task(long id, int category, int priority) {
+        int row = find(chunks, firstIds, length, id);
+        if (row < 0) {
+            return null;
+        }
+        TaskColumns chunk = chunks[row / ROWS];
+        row %= ROWS;
+        if (chunk.isRemoved(row) || (category != TaskIndex.ANY && chunk.category(row) != category)
+                || (priority != TaskIndex.ANY && chunk.priority(row) != priority)) {
+            return null;
+        }
+        return chunk.task(row);
+    }
+
+    /**
+     * Detached tasks for the ids, in the order given, skipping ids that do not exist. While the ids
+     * ascend, each search starts in the chunk where the previous one ended.
+     */
+    List<Task> tasks(long[] ids) {
+        List<Task> tasks = new ArrayList<>(ids.length);
+        int chunk = -1;
+        long previous = Long.MAX_VALUE;
+        for (long id : ids) {
+            int row;
+            int rows = chunk < 0 ? 0 : Math.min(ROWS, length - chunk * ROWS);
+            if (chunk >= 0 && id > previous && id <= chunks[chunk].id(rows - 1)) {
+                int found = chunks[chunk].find(id, rows);
+                row = found < 0 ? -1 : chunk * ROWS + found;
+            } else {
+                row = find(chunks, firstIds, length, id);
+            }
+            previous = id;
+            if (row >= 0) {
+                chunk = row / ROWS;
+                if (!chunks[chunk].isRemoved(row % ROWS)) {
+                    tasks.add(chunks[chunk].task(row % ROWS));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    public boolean contains(long id) {
+        int row = find(chunks, firstIds, length, id);
+        return row >= 0 && !chunks[row / ROWS].isRemoved(row % ROWS);
+    }
+
+    /**
+     * Visits the fixed-size fields of every task, in id order, without materializing the tasks.
+     */
+    void forEachRow(RowVisitor visitor) {
+        for (int c = 0; c < chunks.length; c++) {
+            TaskColumns chunk = chunks[c];
+            int rows = Math.min(ROWS, length - c * ROWS);
+            for (int row = 0; row < rows; row++) {
+                int status = chunk.status(row);
+                if (status != TaskColumns.REMOVED) {
+                    visitor.visit(chunk.id(row), chunk.category(row), chunk.priority(row), chunk.deadline(row), status);
+                }
+            }
+        }
+    }
+
+    // In id order, which is insertion order
+    @Override
+    public Iterator<TaskRecord> iterator() {
+        return new Iterator<>() {
+            private int row = advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return row < length;
+            }
+
+            @Override
+            public TaskRecord next() {
+                if (row >= length) {
+                    throw new NoSuchElementException();
+                }
+                TaskRecord record = chunks[row / ROWS].record(row % ROWS);
+                row = advance(row + 1);
+                return record;
+            }
+
+            private int advance(int from) {
+                while (from < length && chunks[from / ROWS].isRemoved(from % ROWS)) {
+                    from++;
+                }
+                return from;
+            }
+        };
+    }
+
+    /**
+     * @return Detached mutable copies of every task, in insertion order.
+     */
+    public List<Task> toTasks() {
+        List<Task> tasks = new ArrayList<>(size);
+        for (int c = 0; c < chunks.length; c++) {
+            TaskColumns chunk = chunks[c];
+            int rows = Math.min(ROWS, length - c * ROWS);
+            for (int row = 0; row < rows; row++) {
+                if (!chunk.isRemoved(row)) {
+                    tasks.add(chunk.task(row));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    // Binary search over the chunks' first ids, then within the chunk; returns the row or -1
+    private static int find(TaskColumns[] chunks, long[] firstIds, int length, long id) {
+        int low = 0;
+        int high = (length + ROWS - 1) / ROWS - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (firstIds[mid] <= id) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int chunk = high; // the last chunk starting at or before id
+        if (chunk < 0) {
+            return -1;
+        }
+        int row = chunks[chunk].find(id, Math.min(ROWS, length - chunk * ROWS));
+        return row < 0 ? -1 : chunk * ROWS + row;
+    }
+
+    /**
+     * The writer's side: collects the changes to the current version and publishes them as the
+     * next one. Chunks are copied the first time they are written to after a publish, so published
+     * versions are never modified. Not thread-safe; TaskManager uses it while holding its lock.
+     */
+    static final class Builder {
+        private TaskColumns[] chunks = new TaskColumns[0];
+        private long[] firstIds = new long[0]; // copied together with the chunk array
+        private int length;
+        private int size;
+        private boolean chunksOwned; // the chunk array was copied since the last publish
+        private boolean[] chunkOwned = new boolean[0]; // which chunks were copied since the last publish
+        private TextIndex.Version words = TextIndex.Version.EMPTY; // as of the last publish
+
+        /**
+         * Adds the task, or replaces the row with its id.
+         *
+         * @throws IllegalStateException if the task is new and its id is not above every id added so far.
+         */
+        void put(Task task) {
+            int row = find(chunks, firstIds, length, task.getId());
+            if (row < 0) {
+                if (length > 0 && task.getId() <= lastId()) {
+                    throw new IllegalStateException("Task " + task.getId() + " added out of id order");
+                }
+                row = length++;
+                size++;
+            } else if (chunks[row / ROWS].isRemoved(row % ROWS)) {
+                size++; // Removed earlier and added back with the same id
+            }
+            writable(row / ROWS).set(row % ROWS, task);
+            if (row % ROWS == 0) {
+                firstIds[row / ROWS] = task.getId();
+            }
+        }
+
+        void remove(long id) {
+            int row = find(chunks, firstIds, length, id);
+            if (row >= 0 && !chunks[row / ROWS].isRemoved(row % ROWS)) {
+                writable(row / ROWS).markRemoved(row % ROWS);
+                size--;
+            }
+        }
+
+        // Starts over from a complete set of tasks, e.g. after a load
+        void reset(Collection<Task> tasks) {
+            chunks = new TaskColumns[0];
+            firstIds = new long[0];
+            chunkOwned = new boolean[0];
+            chunksOwned = true;
+            length = 0;
+            size = 0;
+            Task[] sorted = tasks.toArray(new Task[0]);
+            Arrays.sort(sorted, Comparator.comparingLong(Task::getId));
+            for (Task task : sorted) {
+                put(task);
+            }
+        }
+
+        /**
+         * @return The current state, including unpublished changes, though with the word index of
+         *         the last publish. Only valid until the next change.
+         */
+        TaskSnapshot view() {
+            return new TaskSnapshot(-1, chunks, firstIds, length, size, words);
+        }
+
+        // The word index must be published from the same changes
+        TaskSnapshot publish(long version, TextIndex.Version words) {
+            if (length > 2 * size + ROWS) {
+                compact();
+            }
+            chunksOwned = false;
+            Arrays.fill(chunkOwned, false);
+            this.words = words;
+            return new TaskSnapshot(version, chunks, firstIds, length, size, words);
+        }
+
+        /**
+         * Adds tasks whose ids may lie between those added so far, e.g. a category read later. The
+         * existing rows and the new tasks are merged in id order into fresh chunks, so published
+         * versions are unaffected.
+         *
+         * @param added Tasks sorted by id, none of which has a row yet.
+         */
+        void merge(List<Task> added) {
+            if (added.isEmpty()) {
+                return;
+            }
+            if (length == 0 || added.get(0).getId() > lastId()) {
+                for (Task task : added) {
+                    put(task);
+                }
+                return;
+            }
+            rebuildChunks(added);
+        }
+
+        // Drops the removed rows into fresh chunks, so published versions are unaffected
+        private void compact() {
+            rebuildChunks(List.of());
+        }
+
+        private void rebuildChunks(List<Task> added) {
+            int total = size + added.size();
+            TaskColumns[] packed = new TaskColumns[(total + ROWS - 1) / ROWS];
+            int target = 0;
+            int next = 0;
+            for (int row = 0; row <= length; row++) {
+                long id = row < length ? chunks[row / ROWS].id(row % ROWS) : Long.MAX_VALUE;
+                for (; next < added.size() && added.get(next).getId() < id; next++, target++) {
+                    chunk(packed, target).set(target % ROWS, added.get(next));
+                }
+                if (row < length && !chunks[row / ROWS].isRemoved(row % ROWS)) {
+                    chunks[row / ROWS].copyRow(row % ROWS, chunk(packed, target), target % ROWS);
+                    target++;
+                }
+            }
+            chunks = packed;
+            firstIds = new long[packed.length];
+            for (int c = 0; c < packed.length; c++) {
+                firstIds[c] = packed[c].id(0);
+            }
+            chunkOwned = new boolean[packed.length];
+            length = total;
+            size = total;
+        }
+
+        private static TaskColumns chunk(TaskColumns[] chunks, int row) {
+            if (chunks[row / ROWS] == null) {
+                chunks[row / ROWS] = new TaskColumns();
+            }
+            return chunks[row / ROWS];
+        }
+
+        private long lastId() {
+            return chunks[(length - 1) / ROWS].id((length - 1) % ROWS);
+        }
+
+        private TaskColumns writable(int index) {
+            if (!chunksOwned || index >= chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(chunks.length, index + 1));
+                firstIds = Arrays.copyOf(firstIds, chunks.length);
+                chunkOwned = Arrays.copyOf(chunkOwned, chunks.length);
+                chunksOwned = true;
+            }
+            if (chunks[index] == null) {
+                chunks[index] = new TaskColumns();
+                chunkOwned[index] = true;
+            } else if (!chunkOwned[index]) {
+                chunks[index] = chunks[index].copy();
+                chunkOwned[index] = true;
+            }
+            return chunks[index];
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.taskmanager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Summary counters over the tasks held by {@link TaskManager}: total, completed, overdue and due
+ * within a week, overall and per category and priority. TaskManager adjusts them as each task is
+ * added, changed or removed, so reading them never walks the task list. The date-based counters are
+ * relative to the day they were last rebuilt for; TaskManager rebuilds them when the date changes.
+ */
+public class TaskStatistics {
+
+    /**
+     * Counters for one group of tasks.
+     */
+    public static class Counts {
+        private int total;
+        private int completed;
+        private int overdue;
+        private int dueWithinWeek;
+
+        Counts() {
+        }
+
+        Counts(Counts other) {
+            this.total = other.total;
+            this.completed = other.completed;
+            this.overdue = other.overdue;
+            this.dueWithinWeek = other.dueWithinWeek;
+        }
+
+        Counts(int total, int completed, int overdue, int dueWithinWeek) {
+            this.total = total;
+            this.completed = completed;
+            this.overdue = overdue;
+            this.dueWithinWeek = dueWithinWeek;
+        }
+
+        // The counters of both groups together
+        Counts plus(Counts other) {
+            return new Counts(total + other.total, completed + other.completed, overdue + other.overdue,
+                    dueWithinWeek + other.dueWithinWeek);
+        }
+
+        public int getTotal() { return total; }
+
+        public int getCompleted() { return completed; }
+
+        // Not completed and deadline before today, whether or not the overdue sweep has marked it yet
+        public int getOverdue() { return overdue; }
+
+        // Deadline from today up to, but not including, a week from today
+        public int getDueWithinWeek() { return dueWithinWeek; }
+
+        private boolean isEmpty() {
+            return total == 0;
+        }
+    }
+
+    /**
+     * Notified after the counters change, on the thread that changed the tasks.
+     */
+    public interface Listener {
+        void statisticsChanged(TaskStatistics statistics);
+    }
+
+    private final Counts totals = new Counts();
+    private final Map<Integer, Counts> byCategory = new HashMap<>(); // keyed by symbol id, so renames need no update
+    private final Map<Integer, Counts> byPriority = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private LocalDate today = LocalDate.now();
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized Counts getTotals() {
+        return new Counts(totals);
+    }
+
+    public synchronized Counts getCategory(String category) {
+        Counts counts = byCategory.get(CategoryManager.symbols().idOf(category));
+        return counts == null ? new Counts() : new Counts(counts);
+    }
+
+    public synchronized Counts getPriority(String priority) {
+        Counts counts = byPriority.get(PriorityManager.symbols().idOf(priority));
+        return counts == null ? new Counts() : new Counts(counts);
+    }
+
+    public synchronized Map<String, Counts> getByCategory() {
+        return copy(byCategory, CategoryManager.symbols());
+    }
+
+    public synchronized Map<String, Counts> getByPriority() {
+        return copy(byPriority, PriorityManager.symbols());
+    }
+
+    // The day the overdue and due-within-a-week counters are relative to
+    public synchronized LocalDate getDay() {
+        return today;
+    }
+
+    synchronized void add(Task task) {
+        apply(task, 1);
+    }
+
+    synchronized void remove(Task task) {
+        apply(task, -1);
+    }
+
+    /**
+     * Recounts everything from a snapshot's columns. The per-group counters are first summed into
+     * int arrays indexed by symbol id, so the sweep allocates nothing per task.
+     */
+    synchronized void rebuild(TaskSnapshot snapshot, LocalDate day) {
+        today = day;
+        int completedOrdinal = Task.Status.COMPLETED.ordinal();
+        int todayDay = (int) day.toEpochDay();
+        int weekDay = todayDay + 7;
+        // Index 0 holds SymbolTable.NONE, so every array is indexed by id + 1
+        int[][] categories = new int[4][CategoryManager.symbols().size() + 1];
+        int[][] priorities = new int[4][PriorityManager.symbols().size() + 1];
+        snapshot.forEachRow((id, category, priority, deadline, status) -> {
+            int c = category + 1;
+            int p = priority + 1;
+            categories[0][c]++;
+            priorities[0][p]++;
+            if (status == completedOrdinal) {
+                categories[1][c]++;
+                priorities[1][p]++;
+            } else if (deadline != TaskColumns.NO_DEADLINE && deadline < todayDay) {
+                categories[2][c]++;
+                priorities[2][p]++;
+            }
+            if (deadline != TaskColumns.NO_DEADLINE && deadline >= todayDay && deadline < weekDay) {
+                categories[3][c]++;
+                priorities[3][p]++;
+            }
+        });
+        totals.total = totals.completed = totals.overdue = totals.dueWithinWeek = 0;
+        fill(byCategory, categories, totals);
+        fill(byPriority, priorities, null);
+    }
+
+    // Called by TaskManager once per mutation, after all adds and removes for it are done
+    void fireChanged() {
+        for (Listener listener : listeners) {
+            listener.statisticsChanged(this);
+        }
+    }
+
+    // Turns the rows of summed counters back into Counts, also adding them to the totals if given
+    private static void fill(Map<Integer, Counts> groups, int[][] sums, Counts totals) {
+        groups.clear();
+        for (int i = 0; i < sums[0].length; i++) {
+            if (sums[0][i] == 0) {
+                continue;
+            }
+            Counts counts = new Counts();
+            counts.total = sums[0][i];
+            counts.completed = sums[1][i];
+            counts.overdue = sums[2][i];
+            counts.dueWithinWeek = sums[3][i];
+            groups.put(i - 1, counts);
+            if (totals != null) {
+                totals.total += counts.total;
+                totals.completed += counts.completed;
+                totals.overdue += counts.overdue;
+                totals.dueWithinWeek += counts.dueWithinWeek;
+            }
+        }
+    }
+
+    private void apply(Task task, int delta) {
+        add(totals, task, delta);
+        add(byCategory.computeIfAbsent(task.getCategoryId(), k -> new Counts()), task, delta);
+        add(byPriority.computeIfAbsent(task.getPriorityId(), k -> new Counts()), task, delta);
+        if (delta < 0) {
+            removeIfEmpty(byCategory, task.getCategoryId());
+            removeIfEmpty(byPriority, task.getPriorityId());
+        }
+    }
+
+    private void add(Counts counts, Task task, int delta) {
+        counts.total += delta;
+        if (task.getStatus() == Task.Status.COMPLETED) {
+            counts.completed += delta;
+        }
+        LocalDate deadline = task.getDeadline();
+        if (deadline != null) {
+            if (task.isOverdueOn(today)) {
+                counts.overdue += delta;
+            }
+            if (!deadline.isBefore(today) && deadline.isBefore(today.plusDays(7))) {
+                counts.dueWithinWeek += delta;
+            }
+        }
+    }
+
+    private static void removeIfEmpty(Map<Integer, Counts> groups, int key) {
+        Counts counts = groups.get(key);
+        if (counts != null && counts.isEmpty()) {
+            groups.remove(key);
+        }
+    }
+
+    // Keyed by the current names
+    private static Map<String, Counts> copy(Map<Integer, Counts> groups, SymbolTable symbols) {
+        Map<String, Counts> copy = new HashMap<>();
+        for (Map.Entry<Integer, Counts> entry : groups.entrySet()) {
+            copy.put(symbols.name(entry.getKey()), new Counts(entry.getValue()));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,178 @@
+package com.taskmanager;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Where one {@link TaskManager} keeps its tasks, opened with {@link StorageBackend#openTasks}. The
+ * manager holds every task it has read in memory and tells the store what changed through
+ * {@link TaskChanges}; the store decides how to make that durable. A store may leave whole
+ * categories on disk until they are needed, see {@link #unloadedCategories()}.
+ * <p>
+ * Every method except {@link #write} and {@link #reload} is called by the manager while it holds
+ * its lock (or before the load completes). Those two run on the persistence writer thread.
+ */
+interface TaskStore {
+
+    /**
+     * What {@link #load} read.
+     */
+    final class Loaded {
+        private final List<Task> tasks;
+        private final long nextId;
+        private final boolean rewrite;
+
+        Loaded(List<Task> tasks, long nextId, boolean rewrite) {
+            this.tasks = tasks;
+            this.nextId = nextId;
+            this.rewrite = rewrite;
+        }
+
+        // In insertion order, every one with its id
+        List<Task> getTasks() { return tasks; }
+
+        // At least one more than every id ever handed out, including those of tasks left on disk
+        long getNextId() { return nextId; }
+
+        // Ids were assigned or the layout changed: the manager should save every task once
+        boolean needsRewrite() { return rewrite; }
+    }
+
+    /**
+     * Reads the stored tasks.
+     *
+     * @param onBatch Receives the tasks as they are read.
+     * @param all     Whether every task must be read now; otherwise the store may leave categories on
+     *                disk.
+     */
+    Loaded load(Consumer<List<Task>> onBatch, boolean all);
+
+    // Symbol ids of the categories whose tasks are still on disk
+    default Collection<Integer> unloadedCategories() {
+        return List.of();
+    }
+
+    // Unloaded categories holding an open task due before the day, which an overdue sweep must read
+    default Collection<Integer> unloadedDueBefore(LocalDate day) {
+        return List.of();
+    }
+
+    /**
+     * Narrows the categories a filtered read has to load.
+     *
+     * @param priority The priority, or {@code null} for any.
+     * @param status   The status, or {@code null} for any.
+     * @return The unloaded categories that may hold a task with the priority and status.
+     */
+    default Collection<Integer> unloadedWith(String priority, Task.Status status) {
+        return unloadedCategories();
+    }
+
+    // Unloaded categories that may hold a task with one of the ids
+    default Collection<Integer> unloadedHolding(Collection<Long> ids) {
+        return unloadedCategories();
+    }
+
+    /**
+     * Reads the tasks of categories that are still on disk. Each one is read at most once.
+     *
+     * @param onBatch Receives the tasks, named with the categories' current names.
+     */
+    default void loadCategories(Collection<Integer> categories, Consumer<List<Task>> onBatch) {
+    }
+
+    /**
+     * Counts the tasks still on disk, without reading them.
+     *
+     * @param category The category, or {@code null} for any.
+     * @param priority The priority, or {@code null} for any.
+     * @param status   The status, or {@code null} for any.
+     * @return The count, or -1 if the store cannot tell without reading the tasks.
+     */
+    default long countUnloaded(String category, String priority, Task.Status status) {
+        return unloadedCategories().isEmpty() ? 0 : -1;
+    }
+
+    /**
+     * Reads the tasks still on disk that match a filter, without handing their categories over.
+     *
+     * @param category The category, or {@code null} for any.
+     * @param priority The priority, or {@code null} for any.
+     * @param status   The status, or {@code null} for any.
+     * @param limit    The most tasks to return.
+     * @return Detached tasks named with the categories' current names, in id order, or {@code null}
+     *         if the store cannot filter them without reading the categories.
+     */
+    default List<Task> queryUnloaded(String category, String priority, Task.Status status, int limit) {
+        return unloadedCategories().isEmpty() ? List.of() : null;
+    }
+
+    /**
+     * Reads the tasks still on disk with a deadline in a range, as {@link #queryUnloaded} does.
+     *
+     * @param from First day included, or {@code null} for no bound.
+     * @param to   First day excluded, or {@code null} for no bound.
+     * @return Detached tasks ordered by deadline, then id, or {@code null} if the store cannot tell.
+     */
+    default List<Task> queryUnloadedDue(LocalDate from, LocalDate to, int limit) {
+        return unloadedCategories().isEmpty() ? List.of() : null;
+    }
+
+    /**
+     * Searches the tasks still on disk, as {@link #queryUnloaded} does, ranked like
+     * {@link TextIndex#search}.
+     *
+     * @param words    Lower-case words, each of which a matching task has in its title or
+     *                 description, possibly as the start of a longer word.
+     * @param category The category, or {@code null} for any.
+     * @param priority The priority, or {@code null} for any.
+     * @param limit    The most tasks to return.
+     * @return Detached tasks, best match first, or {@code null} if the store cannot tell.
+     */
+    default List<Task> searchUnloaded(List<String> words, String category, String priority, int limit) {
+        return unloadedCategories().isEmpty() ? List.of() : null;
+    }
+
+    /**
+     * Sums the summary counters over the tasks still on disk, without reading them.
+     *
+     * @param day The day the overdue and due-within-a-week counters are relative to.
+     * @return The counters, or {@code null} if the store cannot tell without reading the tasks.
+     */
+    default TaskStatistics.Counts summarizeUnloaded(LocalDate day) {
+        return unloadedCategories().isEmpty() ? new TaskStatistics.Counts() : null;
+    }
+
+    /**
+     * Whether the store answers the filtered reads and counts above with queries of its own, cheaply
+     * enough that the window need not read every task up front.
+     */
+    default boolean answersQueries() {
+        return false;
+    }
+
+    // The category is gone; its tasks on disk are never read and go away with the next write
+    default void categoryDeleted(int category) {
+    }
+
+    /**
+     * Reads the stored tasks again if another program replaced them since this store last read or
+     * wrote them, and makes that content the base of later writes. Runs on the writer thread,
+     * without the manager's lock.
+     *
+     * @return Every stored task, with the ids as stored (tasks without one have id 0), or
+     *         {@code null} if nothing changed or the store cannot tell.
+     * @throws IOException if the new content cannot be read, e.g. because it is still being written.
+     */
+    default List<Task> reload() throws IOException {
+        return null;
+    }
+
+    /**
+     * Makes the changes durable. Runs on the writer thread, without the manager's lock.
+     */
+    void write(TaskChanges changes) throws IOException;
+}
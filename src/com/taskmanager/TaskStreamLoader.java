@@ -0,0 +1,120 @@
+package com.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Reads a tasks JSON array one element at a time with Gson's {@link JsonReader} and hands the
+ * tasks over in batches, so callers can show the first tasks long before a large file is parsed.
+ * The loader also computes the length and CRC32 of the bytes it read, which the task journal
+ * needs to check that it belongs to this snapshot. Gzip-compressed files are detected and
+ * decompressed, see {@link Compression}; the length and checksum are those of the file as stored.
+ */
+public class TaskStreamLoader {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Summary of a finished load.
+     */
+    public static class Result {
+        private final int count;
+        private final long length;
+        private final long checksum;
+        private final Compression.Transfer transfer;
+
+        Result(int count, long length, long checksum, Compression.Transfer transfer) {
+            this.count = count;
+            this.length = length;
+            this.checksum = checksum;
+            this.transfer = transfer;
+        }
+
+        public int getCount() { return count; }
+
+        public long getLength() { return length; }
+
+        public long getChecksum() { return checksum; }
+
+        // Encoding, sizes and time of the read; null for an empty file
+        public Compression.Transfer getTransfer() { return transfer; }
+    }
+
+    private TaskStreamLoader() {
+    }
+
+    /**
+     * Streams the tasks stored in {@code path}.
+     *
+     * @param path      The JSON file holding an array of tasks, plain or gzip-compressed.
+     * @param gson      The Gson instance used to bind each element (must know how to read {@code LocalDate}).
+     * @param batchSize Number of tasks per batch. The last batch may be smaller.
+     * @param onBatch   Receives each batch, on the calling thread. Every batch is a new list.
+     * @return Count, length and checksum of what was read.
+     * @throws IOException         if the file cannot be read.
+     * @throws JsonSyntaxException if the file is not a JSON array of tasks.
+     */
+    public static Result load(Path path, Gson gson, int batchSize, Consumer<List<Task>> onBatch) throws IOException {
+        CRC32 checksum = new CRC32();
+        int count = 0;
+        if (Files.size(path) == 0) {
+            return new Result(0, 0, checksum.getValue(), null);
+        }
+        CheckedInputStream in = new CheckedInputStream(Files.newInputStream(path), checksum);
+        Compression.DecodingStream decoded;
+        try {
+            decoded = Compression.decode(in, "tasks");
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        try (decoded;
+             Reader reader = new BufferedReader(new InputStreamReader(decoded, StandardCharsets.UTF_8));
+             JsonReader json = gson.newJsonReader(reader)) {
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+            } else {
+                List<Task> batch = new ArrayList<>(batchSize);
+                json.beginArray();
+                while (json.hasNext()) {
+                    Task task = gson.fromJson(json, Task.class);
+                    if (task == null) {
+                        continue;
+                    }
+                    batch.add(task);
+                    count++;
+                    if (batch.size() == batchSize) {
+                        onBatch.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                json.endArray();
+                if (!batch.isEmpty()) {
+                    onBatch.accept(batch);
+                }
+            }
+            while (reader.read() != -1) {
+                // Drain trailing bytes so the checksum covers the whole file
+            }
+            in.transferTo(OutputStream.nullOutputStream()); // and anything after the gzip trailer
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException("Malformed tasks file " + path, e);
+        }
+        return new Result(count, Files.size(path), checksum.getValue(), decoded.getTransfer());
+    }
+}
@@ -1,7 +1,7 @@
 package com.taskmanager;
 
-import com.google.gson.Gson;
 import javafx.application.Platform;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -11,11 +11,10 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 
 public class TaskViewController {
@@ -34,10 +33,10 @@ public class TaskViewController {
     // Reminders Section
     @FXML private ChoiceBox<String> reminderTypeChoiceBox;
     @FXML private DatePicker reminderDatePicker;
-    @FXML private ListView<Reminder> reminderListView;
+    @FXML private ListView<ReminderViewModel> reminderListView;
 
     // Task List
-    @FXML private ListView<Task> taskListView;
+    @FXML private ListView<TaskViewModel> taskListView;
 
     // Summary Labels
     @FXML private Label totalTasksLabel;
@@ -54,22 +53,24 @@ public class TaskViewController {
     private CategoryManager categoryManager;
     private PriorityManager priorityManager;
     private ReminderManager reminderManager;
-    private Gson gson;
+    private OverdueMonitor overdueMonitor;
+    private LiveSearch liveSearch;
+    private final AtomicBoolean summaryUpdateQueued = new AtomicBoolean();
+    private DataContext dataContext;
 
-    private final ObservableList<Task> taskObservableList = FXCollections.observableArrayList();
+    private TaskListModel taskListModel; // follows TaskManager's events, one view-model per task
+    private ReminderListModel reminderListModel;
     private final ObservableList<String> categoryObservableList = FXCollections.observableArrayList();
-    private final ObservableList<Reminder> reminderObservableList = FXCollections.observableArrayList();
 
-    public void setGson(Gson gson) {
-        this.gson = gson;
-        taskManager = new TaskManager(gson);
-        categoryManager = new CategoryManager();
-        priorityManager = new PriorityManager();
-        reminderManager = new ReminderManager(gson);
-    }
-
-    public void setTaskManager(TaskManager taskManager) {
-        this.taskManager = taskManager;
+    // Called by Main before initialize(); every manager comes from the shared, already loading context
+    public void setDataContext(DataContext dataContext) {
+        this.dataContext = dataContext;
+        taskManager = dataContext.getTaskManager();
+        categoryManager = dataContext.getCategoryManager();
+        priorityManager = dataContext.getPriorityManager();
+        reminderManager = dataContext.getReminderManager();
+        taskListModel = new TaskListModel(taskManager);
+        reminderListModel = new ReminderListModel(reminderManager, taskManager);
     }
 
     @FXML
@@ -78,8 +79,25 @@ public class TaskViewController {
     }
 
     private void initializeData() {
-        refreshTaskList();
-        refreshReminderList(null);
+        taskListView.setItems(taskListModel.getItems());
+        taskListView.setCellFactory(list -> boundCell(TaskViewModel::displayProperty));
+        reminderListView.setItems(reminderListModel.getItems());
+        reminderListView.setCellFactory(list -> boundCell(ReminderViewModel::displayProperty));
+        // The summary labels follow the counters TaskManager maintains, whatever changed the tasks
+        taskManager.addStatisticsListener(statistics -> scheduleSummaryUpdate());
+        updateSummaryLabels();
+        // Show tasks batch by batch while the rest of tasks.json is still being parsed;
+        // the reload event at the end of the load replaces them with the final list
+        dataContext.setTaskBatchListener(batch -> Platform.runLater(() -> taskListModel.showLoading(batch)));
+        if (taskManager.whenLoaded().isDone()) {
+            taskListModel.reload();
+        }
+        // The reminders may have been resolved before the list model started listening
+        reminderManager.whenLoaded().thenRun(() -> Platform.runLater(reminderListModel::reload));
+        // Tasks are swept once at the end of the load, then again at every midnight.
+        // The list model and the summary labels pick the status changes up from TaskManager's events.
+        overdueMonitor = new OverdueMonitor(taskManager);
+        taskManager.whenLoaded().thenRun(overdueMonitor::start);
 
         categoryObservableList.addAll(categoryManager.getCategories());
         categoryComboBox.setItems(categoryObservableList);
@@ -97,14 +115,8 @@ public class TaskViewController {
             stage.setOnCloseRequest(event -> handleExit());
         });
 
-        // --- Timer for Reminder Pop-ups ---
-        Timer reminderTimer = new Timer(true); // Daemon thread, will not prevent application exit
-        reminderTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                Platform.runLater(() -> checkAndShowReminders()); // Run on JavaFX Application Thread
-            }
-        }, 0, 60 * 1000);         // --- End Timer ---
+        // Reminder pop-ups: the scheduler wakes up only when a reminder comes due
+        reminderManager.startScheduler(due -> Platform.runLater(() -> showDueReminders(due)));
 
         // --- Populate Search ComboBoxes ---
         ObservableList<String> prioritySearchOptions = FXCollections.observableArrayList();
@@ -119,27 +131,20 @@ public class TaskViewController {
         categorySearchComboBox.setItems(categorySearchOptions);
         categorySearchComboBox.setValue("All Categories"); // Default selection
         // --- End Populate Search ComboBoxes ---
-    }
-
 
-    private void checkAndShowReminders() {
-        LocalDate today = LocalDate.now();
-        List<Reminder> remindersToShow = new ArrayList<>(); // List to collect reminders to show
+        // Search as you type; results ranked by TaskManager.searchRanked()
+        liveSearch = new LiveSearch(taskManager, this::showSearchResults);
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> runSearch(true));
+        prioritySearchComboBox.valueProperty().addListener((obs, oldVal, newVal) -> runSearch(true));
+        categorySearchComboBox.valueProperty().addListener((obs, oldVal, newVal) -> runSearch(true));
+    }
 
-        for (Reminder reminder : reminderManager.getReminders()) {
-            if ((reminder.getReminderDate().isEqual(today) || reminder.getReminderDate().isBefore(today)) && !reminder.isShown()) { // Check !isShown()
-                remindersToShow.add(reminder); // Add to list to show
-            }
-        }
 
-        for (Reminder reminder : remindersToShow) { // Iterate through collected reminders
+    private void showDueReminders(List<Reminder> remindersToShow) {
+        for (Reminder reminder : remindersToShow) {
             showReminderPopup(reminder);
-            reminder.setShown(true); // Mark as shown
-        }
-
-        if (!remindersToShow.isEmpty()) { // Save only if any reminder was shown and marked as 'shown'
-            reminderManager.saveReminders(); // Save reminders to persist 'isShown' status
         }
+        reminderManager.markShown(remindersToShow);
     }
 
     @FXML
@@ -163,15 +168,12 @@ public class TaskViewController {
 
         Task task = new Task(title, description, category, priority, deadline);
         taskManager.addTask(task);
-        refreshTaskList();
-        updateSummaryLabels(); // ADDED: Call updateSummaryLabels after refreshTaskList in addTask
         clearFields();
-        refreshReminderList(null); // Refresh reminder list after task add
     }
 
     @FXML
     private void updateTask() {
-        Task selectedTask = taskListView.getSelectionModel().getSelectedItem();
+        Task selectedTask = selectedTask();
         if (selectedTask == null) {
             showAlert("No Task Selected", "Please select a task to update.");
             return;
@@ -180,7 +182,7 @@ public class TaskViewController {
         Task.Status newStatus = statusChoiceBox.getValue() != null ? statusChoiceBox.getValue() : selectedTask.getStatus();
 
         taskManager.updateTask(
-                selectedTask,
+                selectedTask.getId(),
                 titleField.getText(),
                 descriptionField.getText(),
                 categoryComboBox.getValue(),
@@ -188,44 +190,54 @@ public class TaskViewController {
                 deadlinePicker.getValue(),
                 newStatus
         );
-        refreshTaskList();
-        updateSummaryLabels(); // ADDED: Call updateSummaryLabels after refreshTaskList in updateTask
         clearFields();
-        refreshReminderList(selectedTask); // Refresh reminder list after task update, keeping selected task
     }
 
     @FXML
     private void removeTask() {
-        Task selectedTask = taskListView.getSelectionModel().getSelectedItem();
+        Task selectedTask = selectedTask();
         if (selectedTask == null) {
             showAlert("No Task Selected", "Please select a task to remove.");
             return;
         }
 
-        System.out.println("removeTask() method in TaskViewController is called."); // ADDED DEBUG LINE
-        System.out.println("Calling reminderManager.deleteRemindersForTask() for task: " + selectedTask.getTitle()); // ADDED DEBUG LINE
         reminderManager.deleteRemindersForTask(selectedTask);
-        taskManager.removeTask(selectedTask);
-        refreshTaskList();
-        updateSummaryLabels(); // ADDED: Call updateSummaryLabels after refreshTaskList in removeTask
+        taskManager.removeTask(selectedTask.getId());
         clearFields();
-        refreshReminderList(null); // Refresh reminder list after task remove
     }
 
     @FXML
     private void searchTasks() {
-        String query = searchField.getText().trim().toLowerCase();
+        runSearch(false);
+    }
+
+    // Live search: called on every keystroke and filter change. The query itself runs on LiveSearch's thread.
+    private void runSearch(boolean debounce) {
+        String query = searchField.getText().trim();
         String selectedPriority = prioritySearchComboBox.getValue(); // Get selected priority
         String selectedCategory = categorySearchComboBox.getValue(); // Get selected category
 
         // Handle "All" options as null for no filter
-        String priorityFilter = "All Priorities".equals(selectedPriority) ? null : selectedPriority;
-        String categoryFilter = "All Categories".equals(selectedCategory) ? null : selectedCategory;
-
+        String priorityFilter = selectedPriority == null || "All Priorities".equals(selectedPriority) ? null : selectedPriority;
+        String categoryFilter = selectedCategory == null || "All Categories".equals(selectedCategory) ? null : selectedCategory;
+
+        if (query.isEmpty() && priorityFilter == null && categoryFilter == null) {
+            liveSearch.cancel(); // Nothing to search for: back to the full list
+            taskListView.setItems(taskListModel.getItems());
+        } else if (debounce) {
+            liveSearch.search(query, priorityFilter, categoryFilter);
+        } else {
+            liveSearch.searchNow(query, priorityFilter, categoryFilter);
+        }
+    }
 
-        List<Task> results = taskManager.searchTasks(query, priorityFilter, categoryFilter); // Pass filters
-        taskObservableList.setAll(results);
-        updateSummaryLabels(); // ADDED: Call updateSummaryLabels here, NOT refreshTaskList()
+    private void showSearchResults(List<Task> results) {
+        // Results share the list's view-models, so edits made while searching still show up in them
+        ObservableList<TaskViewModel> resultViews = FXCollections.observableArrayList();
+        for (Task task : results) {
+            resultViews.add(taskListModel.viewOf(task));
+        }
+        taskListView.setItems(resultViews);
     }
 
     @FXML
@@ -244,14 +256,12 @@ public class TaskViewController {
         if (selectedCategory != null) {
             categoryManager.deleteCategory(selectedCategory, taskManager);
             categoryObservableList.setAll(categoryManager.getCategories());
-            refreshTaskList();
-            updateSummaryLabels(); // Summary labels need update after category delete which affects tasks
         }
     }
 
     @FXML
     private void addReminder() {
-        Task selectedTask = taskListView.getSelectionModel().getSelectedItem();
+        Task selectedTask = selectedTask();
         if (selectedTask == null) {
             showAlert("Missing Information", "Please select a task first.");
             return;
@@ -302,29 +312,23 @@ public class TaskViewController {
         }
 
         reminderManager.addReminder(selectedTask, reminderDate);
-        refreshReminderList(selectedTask); // Refresh reminder list after reminder add, keeping selected task
         reminderDatePicker.setValue(null);
     }
 
     @FXML
     private void deleteReminder() {
-        Reminder selectedReminder = reminderListView.getSelectionModel().getSelectedItem();
+        ReminderViewModel selectedReminder = reminderListView.getSelectionModel().getSelectedItem();
         if (selectedReminder == null) {
             showAlert("No Reminder Selected", "Please select a reminder to delete.");
             return;
         }
 
-        Task associatedTask = selectedReminder.getTask();
-        List<Reminder> remindersForTask = reminderManager.getRemindersForTask(associatedTask);
-
-        remindersForTask.remove(selectedReminder);
-        reminderManager.saveReminders();
-        refreshReminderList(associatedTask); // Refresh reminder list after reminder delete, for associated task
+        reminderManager.deleteReminder(selectedReminder.getReminder());
     }
 
 
     private void loadSelectedTask() {
-        Task selectedTask = taskListView.getSelectionModel().getSelectedItem();
+        Task selectedTask = selectedTask();
         if (selectedTask != null) {
             titleField.setText(selectedTask.getTitle());
             descriptionField.setText(selectedTask.getDescription());
@@ -332,34 +336,28 @@ public class TaskViewController {
             priorityChoiceBox.setValue(selectedTask.getPriority());
             deadlinePicker.setValue(selectedTask.getDeadline());
             statusChoiceBox.setValue(selectedTask.getStatus());
-            refreshReminderList(selectedTask); // Refresh reminder list when task is selected
-        } else {
-            refreshReminderList(null); // Refresh with null if no task selected (e.g., after clearing selection)
         }
     }
 
-    private void refreshTaskList() {
-        taskObservableList.setAll(taskManager.getTasks());
-        taskListView.setItems(taskObservableList);
-        updateSummaryLabels(); // ADDED: Call updateSummaryLabels at the end of refreshTaskList
-    }
-
-    private void refreshReminderList(Task selectedTask) { // Modified to take selectedTask (but now we'll ignore it for showing ALL reminders)
-        refreshAllReminders(); // Reload all reminders from ReminderManager
-
-        // Option 1: Always show ALL reminders in reminderListView
-        reminderObservableList.setAll(reminderManager.getReminders()); // Set ALL reminders to the observable list
-
-        reminderListView.setItems(reminderObservableList); // Update the ListView
-    }
-
-    private void refreshAllReminders() {
-        reminderObservableList.setAll(reminderManager.getReminders()); // Method to reload ALL reminders
+    private Task selectedTask() {
+        TaskViewModel selected = taskListView.getSelectionModel().getSelectedItem();
+        return selected == null ? null : selected.getTask();
     }
 
-
-    private void refreshReminderListForSelectedTask(Task selectedTask) { // Eliminated this method - using refreshReminderList(Task selectedTask) instead
-        refreshReminderList(selectedTask);
+    // A list cell whose text follows the item's display binding, so only cells whose item changed are redrawn
+    private static <T> ListCell<T> boundCell(Function<T, ObservableValue<String>> display) {
+        return new ListCell<>() {
+            @Override
+            protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                textProperty().unbind();
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    textProperty().bind(display.apply(item));
+                }
+            }
+        };
     }
 
     private void clearFields() {
@@ -392,8 +390,11 @@ public class TaskViewController {
     }
 
     private void handleExit() {
+        overdueMonitor.shutdown();
+        liveSearch.shutdown();
         taskManager.saveTasks();
         reminderManager.saveReminders();
+        PersistenceService.getInstance().flush(); // Wait for the background writer before the window closes
         System.out.println("Tasks and reminders saved before exit.");
     }
 
@@ -401,8 +402,8 @@ public class TaskViewController {
         searchField.clear();
         prioritySearchComboBox.setValue("All Priorities"); // Reset priority filter
         categorySearchComboBox.setValue("All Categories"); // Reset category filter
-        taskObservableList.setAll(taskManager.getTasks());
-        updateSummaryLabels();
+        liveSearch.cancel();
+        taskListView.setItems(taskListModel.getItems());
     }
 
 
@@ -511,8 +512,6 @@ public class TaskViewController {
         categoryManager.deleteCategory(categoryToDelete, taskManager);
         categoryObservableList.remove(categoryToDelete);
         saveCategoriesToFile();
-        refreshTaskList();
-        updateSummaryLabels(); // Summary labels need update after category delete which affects tasks
     }
 
 
@@ -623,8 +622,6 @@ public class TaskViewController {
         priorityManager.renamePriority(oldPriorityName, newPriorityName, taskManager);
         refreshPriorityChoiceBox();
         savePrioritiesToFile();
-        refreshTaskList();
-        updateSummaryLabels(); // Summary labels need update after priority rename which might affect tasks
     }
 
 
@@ -632,56 +629,27 @@ public class TaskViewController {
         priorityManager.deletePriority(priorityToDelete, taskManager);
         refreshPriorityChoiceBox();
         savePrioritiesToFile();
-        refreshTaskList();
-        updateSummaryLabels(); // Summary labels need update after priority delete which might affect tasks
     }
 
     private void savePrioritiesToFile() {
         priorityManager.savePriorities();
     }
 
-    private void updateSummaryLabels() {
-        updateTotalTasksCount();
-        updateCompletedTasksCount();
-        updateDelayedTasksCount();
-        updateDueWithinWeekCount();
-    }
-
-    private void updateTotalTasksCount() {
-        int totalTasks = taskManager.getTasks().size();
-        totalTasksLabel.setText(String.valueOf(totalTasks));
-    }
-
-    private void updateCompletedTasksCount() {
-        int completedTasks = 0;
-        for (Task task : taskManager.getTasks()) {
-            if (task.getStatus() == Task.Status.COMPLETED) {
-                completedTasks++;
-            }
-        }
-        completedTasksLabel.setText(String.valueOf(completedTasks));
-    }
-
-    private void updateDelayedTasksCount() {
-        int delayedTasks = 0;
-        for (Task task : taskManager.getTasks()) {
-            if (task.getDeadline() != null && task.getDeadline().isBefore(LocalDate.now()) && task.getStatus() != Task.Status.COMPLETED) {
-                delayedTasks++;
-            }
+    // Coalesces a burst of statistics changes into one label update on the FX thread
+    private void scheduleSummaryUpdate() {
+        if (!summaryUpdateQueued.getAndSet(true)) {
+            Platform.runLater(() -> {
+                summaryUpdateQueued.set(false);
+                updateSummaryLabels();
+            });
         }
-        delayedTasksLabel.setText(String.valueOf(delayedTasks));
     }
 
-    private void updateDueWithinWeekCount() {
-        int dueWithinWeek = 0;
-        LocalDate today = LocalDate.now();
-        LocalDate weekFromToday = today.plusDays(7);
-        for (Task task : taskManager.getTasks()) {
-            if (task.getDeadline() != null &&
-                    (task.getDeadline().isEqual(today) || (task.getDeadline().isAfter(today) && task.getDeadline().isBefore(weekFromToday)))) {
-                dueWithinWeek++;
-            }
-        }
-        dueWithinWeekLabel.setText(String.valueOf(dueWithinWeek));
+    private void updateSummaryLabels() {
+        TaskStatistics.Counts totals = taskManager.getTotals();
+        totalTasksLabel.setText(String.valueOf(totals.getTotal()));
+        completedTasksLabel.setText(String.valueOf(totals.getCompleted()));
+        delayedTasksLabel.setText(String.valueOf(totals.getOverdue()));
+        dueWithinWeekLabel.setText(String.valueOf(totals.getDueWithinWeek()));
     }
 }
\ No newline at end of file
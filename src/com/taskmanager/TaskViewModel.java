@@ -0,0 +1,84 @@
+package com.taskmanager;
+
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.StringBinding;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+import java.time.LocalDate;
+
+/**
+ * JavaFX view of one task: a property per field, filled by {@link #refresh(TaskRecord)}, and a
+ * {@link #displayProperty() display text} that list cells bind to. Only properties whose value
+ * changed fire, so a cell is redrawn only when what it shows changed. The fields are read from an
+ * immutable {@link TaskRecord}, never from a {@link Task} other threads may still be changing. Use
+ * on the FX thread only.
+ */
+public class TaskViewModel {
+    private TaskRecord task; // as of the last change delivered to refresh()
+    private final StringProperty title = new SimpleStringProperty(this, "title");
+    private final StringProperty description = new SimpleStringProperty(this, "description");
+    private final StringProperty category = new SimpleStringProperty(this, "category");
+    private final StringProperty priority = new SimpleStringProperty(this, "priority");
+    private final ObjectProperty<LocalDate> deadline = new SimpleObjectProperty<>(this, "deadline");
+    private final ObjectProperty<Task.Status> status = new SimpleObjectProperty<>(this, "status");
+    private final StringBinding display;
+
+    public TaskViewModel(TaskRecord task) {
+        this.task = task;
+        refresh();
+        // Same text as Task.toString(); computed lazily, only when a visible cell asks for it
+        display = Bindings.createStringBinding(
+                () -> String.format("%s [%s] - %s (Deadline: %s, Priority: %s)",
+                        title.get(), category.get(), status.get(), deadline.get(), priority.get()),
+                title, category, status, deadline, priority);
+    }
+
+    // Takes the task's fields after a change
+    public void refresh(TaskRecord task) {
+        this.task = task;
+        refresh();
+    }
+
+    // Copies the task's fields into the properties
+    private void refresh() {
+        title.set(task.getTitle());
+        description.set(task.getDescription());
+        category.set(task.getCategory());
+        priority.set(task.getPriority());
+        deadline.set(task.getDeadline());
+        status.set(task.getStatus());
+    }
+
+    // A detached copy of the task as shown
+    public Task getTask() {
+        return task.toTask();
+    }
+
+    public long getId() {
+        return task.getId();
+    }
+
+    public StringProperty titleProperty() { return title; }
+
+    public StringProperty descriptionProperty() { return description; }
+
+    public StringProperty categoryProperty() { return category; }
+
+    public StringProperty priorityProperty() { return priority; }
+
+    public ObjectProperty<LocalDate> deadlineProperty() { return deadline; }
+
+    public ObjectProperty<Task.Status> statusProperty() { return status; }
+
+    public StringBinding displayProperty() {
+        return display;
+    }
+
+    @Override
+    public String toString() {
+        return display.get();
+    }
+}
@@ -0,0 +1,426 @@
+package com.taskmanager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Inverted index over task titles and descriptions. Text is split into lowercase tokens of letters
+ * and digits; each token maps to the ids of the tasks containing it, with a flag telling whether it
+ * occurs in the title. Queries are ANDed terms, each of which matches any token it is a prefix of,
+ * and results are ranked by how well each term matched.
+ * <p>
+ * Searches run on a {@link Version}, an immutable copy published together with each
+ * {@link TaskSnapshot}, so they need no lock and never hold up edits. The tokens of a version are a
+ * sorted array, and a token's postings are parallel primitive arrays sorted by id, so an entry
+ * costs nine bytes and no object. Changes are collected per token and merged into new postings by
+ * {@link #publish()}; a version shares the postings of every token that did not change. Nothing is
+ * kept per task: removing a task tokenizes the text it was indexed with again.
+ * The writer's side is not thread-safe; {@link TaskManager} only uses it while holding its own lock.
+ */
+public class TextIndex {
+    static final int IN_TITLE = 2;
+    static final int IN_DESCRIPTION = 1;
+    private static final int REMOVED = 0; // the flags of a pending removal
+
+    // Per-term scores: an exact title word beats a title prefix, which beats any description match
+    static final int EXACT_TITLE = 8;
+    static final int PREFIX_TITLE = 4;
+    static final int EXACT_DESCRIPTION = 2;
+    static final int PREFIX_DESCRIPTION = 1;
+
+    private static final int CHECK_EVERY = 4096; // entries visited between checks for cancellation
+
+    private Version published = Version.EMPTY;
+    private final Map<String, Changes> pending = new HashMap<>(); // token -> changes since the last publish
+
+    public void add(Task task) {
+        for (Map.Entry<String, Integer> entry : flags(task).entrySet()) {
+            changes(entry.getKey()).add(task.getId(), entry.getValue());
+        }
+    }
+
+    public void addAll(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    // Call with the fields the task was indexed with
+    public void remove(Task task) {
+        for (String token : flags(task).keySet()) {
+            changes(token).add(task.getId(), REMOVED);
+        }
+    }
+
+    public void removeAll(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            remove(task);
+        }
+    }
+
+    /**
+     * Replaces the entries of a task whose title or description changed. Only the tokens that came
+     * or went, or moved between title and description, are touched.
+     */
+    public void update(Task old, Task updated) {
+        Map<String, Integer> before = flags(old);
+        Map<String, Integer> after = flags(updated);
+        for (String token : before.keySet()) {
+            if (!after.containsKey(token)) {
+                changes(token).add(old.getId(), REMOVED);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : after.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                changes(entry.getKey()).add(updated.getId(), entry.getValue());
+            }
+        }
+    }
+
+    public void rebuild(Collection<Task> tasks) {
+        published = Version.EMPTY; // Versions handed out keep their own arrays
+        pending.clear();
+        addAll(tasks);
+    }
+
+    /**
+     * Applies the changes made since the last call, each token's in one merge.
+     *
+     * @return The index as it is now; it never changes afterwards.
+     */
+    public Version publish() {
+        if (pending.isEmpty()) {
+            return published;
+        }
+        String[] touched = pending.keySet().toArray(new String[0]);
+        Arrays.sort(touched);
+        String[] tokens = published.tokens;
+        Postings[] postings = published.postings;
+        String[] newTokens = new String[tokens.length + touched.length];
+        Postings[] newPostings = new Postings[newTokens.length];
+        int count = 0;
+        int i = 0;
+        for (String token : touched) {
+            for (; i < tokens.length && tokens[i].compareTo(token) < 0; i++) {
+                newTokens[count] = tokens[i];
+                newPostings[count++] = postings[i];
+            }
+            boolean existing = i < tokens.length && tokens[i].equals(token);
+            Postings merged = pending.get(token).applyTo(existing ? postings[i++] : Postings.EMPTY);
+            if (merged.ids.length > 0) {
+                newTokens[count] = token;
+                newPostings[count++] = merged;
+            }
+        }
+        for (; i < tokens.length; i++) {
+            newTokens[count] = tokens[i];
+            newPostings[count++] = postings[i];
+        }
+        pending.clear();
+        published = new Version(Arrays.copyOf(newTokens, count), Arrays.copyOf(newPostings, count));
+        return published;
+    }
+
+    private Changes changes(String token) {
+        return pending.computeIfAbsent(token, k -> new Changes());
+    }
+
+    /**
+     * The score {@link Version#hits} gives a task for the query, computed from its text alone; e.g.
+     * for tasks a store found without them being indexed here.
+     *
+     * @return The score, or 0 if some term matches no word of the task.
+     */
+    static int score(List<String> terms, String title, String description) {
+        Map<String, Integer> flags = flags(title, description);
+        int total = 0;
+        for (String term : new LinkedHashSet<>(terms)) {
+            int best = 0;
+            for (Map.Entry<String, Integer> token : flags.entrySet()) {
+                if (token.getKey().startsWith(term)) {
+                    best = Math.max(best, score(token.getKey().equals(term), token.getValue()));
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int score(boolean exact, int flags) {
+        return (flags & IN_TITLE) != 0
+                ? (exact ? EXACT_TITLE : PREFIX_TITLE)
+                : (exact ? EXACT_DESCRIPTION : PREFIX_DESCRIPTION);
+    }
+
+    private static Map<String, Integer> flags(Task task) {
+        return flags(task.getTitle(), task.getDescription());
+    }
+
+    // The tokens of a title and description with their IN_* flags
+    static Map<String, Integer> flags(String title, String description) {
+        Map<String, Integer> flags = new HashMap<>();
+        for (String token : tokenize(title)) {
+            flags.merge(token, IN_TITLE, (a, b) -> a | b);
+        }
+        for (String token : tokenize(description)) {
+            flags.merge(token, IN_DESCRIPTION, (a, b) -> a | b);
+        }
+        return flags;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Matching task ids, best first, with their scores; see Version.hits()
+    static final class Hits {
+        static final Hits NONE = new Hits(new long[0], new int[0]);
+
+        final long[] ids;
+        final int[] scores;
+
+        Hits(long[] ids, int[] scores) {
+            this.ids = ids;
+            this.scores = scores;
+        }
+    }
+
+    /**
+     * The index as it was at one {@link #publish()}. Immutable, so it can be searched on any thread.
+     */
+    public static final class Version {
+        static final Version EMPTY = new Version(new String[0], new Postings[0]);
+
+        private final String[] tokens; // sorted
+        private final Postings[] postings; // of each token
+
+        private Version(String[] tokens, Postings[] postings) {
+            this.tokens = tokens;
+            this.postings = postings;
+        }
+
+        /**
+         * Finds the tasks matching every term of the query.
+         *
+         * @param query Free text; each word is matched as a prefix of title and description words.
+         * @return Ids of the matching tasks, best match first and in insertion order among equals.
+         *         Empty if the query has no words.
+         */
+        public long[] search(String query) {
+            return hits(query, () -> false).ids;
+        }
+
+        /**
+         * Same as {@link #search}, with the score of each match.
+         *
+         * @param cancelled Polled while the postings are merged and ranked.
+         * @throws CancellationException once {@code cancelled} returns true.
+         */
+        Hits hits(String query, BooleanSupplier cancelled) {
+            List<String> terms = tokenize(query);
+            if (terms.isEmpty()) {
+                return Hits.NONE;
+            }
+            long[] ids = null;
+            int[] scores = null;
+            int found = 0;
+            for (String term : new LinkedHashSet<>(terms)) {
+                long[] matches = match(term, cancelled);
+                if (ids == null) {
+                    ids = new long[matches.length];
+                    scores = new int[matches.length];
+                    for (long match : matches) {
+                        ids[found] = match >>> 4;
+                        scores[found++] = (int) (match & 15);
+                    }
+                } else {
+                    // Both are in id order: keep the ids in both, adding up their scores
+                    int kept = 0;
+                    for (int i = 0, j = 0; i < found && j < matches.length; ) {
+                        long id = matches[j] >>> 4;
+                        if (ids[i] < id) {
+                            i++;
+                        } else if (ids[i] > id) {
+                            j++;
+                        } else {
+                            ids[kept] = id;
+                            scores[kept++] = scores[i++] + (int) (matches[j++] & 15);
+                        }
+                    }
+                    found = kept;
+                }
+                if (found == 0) {
+                    return Hits.NONE;
+                }
+                checkCancelled(cancelled);
+            }
+            // Counting sort by descending score; ids stay ascending within a score
+            int best = 0;
+            for (int i = 0; i < found; i++) {
+                best = Math.max(best, scores[i]);
+            }
+            int[] start = new int[best + 2];
+            for (int i = 0; i < found; i++) {
+                start[best - scores[i] + 1]++;
+            }
+            for (int i = 1; i < start.length; i++) {
+                start[i] += start[i - 1];
+            }
+            long[] ranked = new long[found];
+            int[] rankedScores = new int[found];
+            for (int i = 0; i < found; i++) {
+                int position = start[best - scores[i]]++;
+                ranked[position] = ids[i];
+                rankedScores[position] = scores[i];
+            }
+            return new Hits(ranked, rankedScores);
+        }
+
+        /**
+         * Best score of one term per task, over every token the term is a prefix of.
+         *
+         * @return Ascending task ids, each shifted left by four bits with its score in the low bits.
+         */
+        private long[] match(String term, BooleanSupplier cancelled) {
+            int first = Arrays.binarySearch(tokens, term);
+            first = first < 0 ? -first - 1 : first;
+            int end = first;
+            int total = 0;
+            while (end < tokens.length && tokens[end].startsWith(term)) {
+                total += postings[end++].ids.length;
+            }
+            long[] keys = new long[total];
+            int found = 0;
+            for (int t = first; t < end; t++) {
+                boolean exact = tokens[t].equals(term);
+                Postings ids = postings[t];
+                for (int i = 0; i < ids.ids.length; i++) {
+                    keys[found++] = ids.ids[i] << 4 | score(exact, ids.flags[i]);
+                }
+                if (found % CHECK_EVERY < ids.ids.length) {
+                    checkCancelled(cancelled);
+                }
+            }
+            if (end - first <= 1) {
+                return keys; // One token's postings are already in id order
+            }
+            Arrays.sort(keys);
+            checkCancelled(cancelled);
+            int kept = 0;
+            for (int i = 0; i < keys.length; i++) {
+                // Sorted by id, then score, so the last key of an id holds its best score
+                if (i + 1 == keys.length || keys[i] >>> 4 != keys[i + 1] >>> 4) {
+                    keys[kept++] = keys[i];
+                }
+            }
+            return Arrays.copyOf(keys, kept);
+        }
+    }
+
+    static void checkCancelled(BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Search cancelled");
+        }
+    }
+
+    // Changes to one token's postings since the last publish, in the order they were made
+    private static final class Changes {
+        private long[] ids = new long[2];
+        private byte[] flags = new byte[2]; // REMOVED, or the IN_* flags to store
+        private int size;
+        private boolean ascending = true; // ids were added in increasing order, the usual case
+
+        void add(long id, int flag) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                flags = Arrays.copyOf(flags, capacity);
+            }
+            ascending &= size == 0 || ids[size - 1] <= id;
+            ids[size] = id;
+            flags[size++] = (byte) flag;
+        }
+
+        // New postings: the base merged with the last change of each id
+        Postings applyTo(Postings base) {
+            int[] order = null; // positions by id, then by when they were made; null if already so
+            if (!ascending) {
+                Integer[] boxed = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    boxed[i] = i;
+                }
+                Arrays.sort(boxed, (a, b) -> Long.compare(ids[a], ids[b])); // Stable
+                order = new int[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = boxed[i];
+                }
+            }
+            long[] mergedIds = new long[base.ids.length + size];
+            byte[] mergedFlags = new byte[mergedIds.length];
+            int count = 0;
+            int i = 0;
+            for (int k = 0; k < size; k++) {
+                int change = order == null ? k : order[k];
+                long id = ids[change];
+                int next = k + 1 < size ? (order == null ? k + 1 : order[k + 1]) : -1;
+                if (next >= 0 && ids[next] == id) {
+                    continue; // A later change of the same id wins
+                }
+                for (; i < base.ids.length && base.ids[i] < id; i++) {
+                    mergedIds[count] = base.ids[i];
+                    mergedFlags[count++] = base.flags[i];
+                }
+                if (i < base.ids.length && base.ids[i] == id) {
+                    i++;
+                }
+                if (flags[change] != REMOVED) {
+                    mergedIds[count] = id;
+                    mergedFlags[count++] = flags[change];
+                }
+            }
+            for (; i < base.ids.length; i++) {
+                mergedIds[count] = base.ids[i];
+                mergedFlags[count++] = base.flags[i];
+            }
+            return new Postings(Arrays.copyOf(mergedIds, count), Arrays.copyOf(mergedFlags, count));
+        }
+    }
+
+    // The postings of one token: task ids ascending, with the IN_* flags of each. Never modified.
+    private static final class Postings {
+        static final Postings EMPTY = new Postings(new long[0], new byte[0]);
+
+        final long[] ids;
+        final byte[] flags;
+
+        Postings(long[] ids, byte[] flags) {
+            this.ids = ids;
+            this.flags = flags;
+        }
+    }
+}